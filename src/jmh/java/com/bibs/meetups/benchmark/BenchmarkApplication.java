@@ -0,0 +1,76 @@
+package com.bibs.meetups.benchmark;
+
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.RegistrationRepository;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.cache.RegistrationCache;
+import com.bibs.meetups.service.impl.RegistrationServiceImpl;
+import com.bibs.meetups.service.outbox.Outbox;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// contexto mínimo com a camada de registration sobre um H2 embarcado, sem subir a parte web
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = Registration.class)
+@EnableJpaRepositories(basePackageClasses = RegistrationRepository.class)
+@Import({RegistrationServiceImpl.class, RegistrationCache.class, RegistrationSearchIndex.class, Outbox.class,
+        AttendanceCounters.class})
+public class BenchmarkApplication {
+
+    private static final String[] FIRST_NAMES = {"Paula", "Ana", "Amanda", "Beatriz", "Carla", "Daniela", "Elisa",
+            "Fernanda", "Gabriela", "Helena", "Isabela", "Juliana", "Larissa", "Mariana", "Natalia", "Olivia",
+            "Patricia", "Renata", "Sofia", "Tatiana"};
+
+    private static final String[] LAST_NAMES = {"Souza", "Silva", "Santos", "Oliveira", "Pereira", "Lima", "Costa",
+            "Ferreira", "Rodrigues", "Almeida", "Nascimento", "Carvalho", "Gomes", "Martins", "Araujo", "Ribeiro",
+            "Barbosa", "Rocha", "Dias", "Moreira", "Cardoso", "Teixeira", "Correia", "Mendes", "Nunes", "Vieira",
+            "Monteiro", "Freitas", "Cavalcanti", "Pinto"};
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "springfox.documentation.enabled=false")
+                .run();
+    }
+
+    static String name(int i) {
+        return FIRST_NAMES[i % FIRST_NAMES.length] + " " + LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length] + " " + i;
+    }
+
+    static String registration(int i) {
+        return String.format("REG-%07d", i);
+    }
+
+    // carga direta por JDBC em lote, bem mais rápida que passar pelo Hibernate para milhões de linhas
+    static void load(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        int chunk = 10_000;
+        for (int start = 0; start < rows; start += chunk) {
+            List<Object[]> batch = new ArrayList<>(chunk);
+            for (int i = start; i < Math.min(rows, start + chunk); i++) {
+                batch.add(new Object[]{i + 1, name(i), Date.valueOf("2022-04-04"), registration(i), 0});
+            }
+            jdbcTemplate.batchUpdate("insert into registration (registration_id, registration_name, date_of_registration, registration, version) " +
+                    "values (?, ?, ?, ?, ?)", batch);
+        }
+    }
+}
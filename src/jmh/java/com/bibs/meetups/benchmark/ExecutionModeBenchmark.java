@@ -0,0 +1,218 @@
+package com.bibs.meetups.benchmark;
+
+import com.bibs.meetups.MeetupsAppointmentServiceApplication;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.RegistrationRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// p99 da listagem de meetups com 128 clientes simultâneos em cada modo de execução (meetups.execution.mode).
+// O banco ganha uma latência artificial por conexão para simular I/O de rede; os percentis saem do modo
+// SampleTime do JMH e o máximo de requisições em andamento no servidor é impresso no fim de cada rodada.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(128)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private static final String EVENT = "Womakerscode Dados";
+
+    @Param({"platform", "virtual", "async"})
+    public String mode;
+
+    @Param({"50"})
+    public int tomcatThreads;
+
+    @Param({"20"})
+    public int dbLatencyMs;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest request;
+
+    private final AtomicInteger errors = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // como argumentos, para passar por cima do application.properties
+        context = new SpringApplicationBuilder(WebApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + tomcatThreads,
+                        "--meetups.execution.mode=" + mode,
+                        "--benchmark.db-latency-ms=" + dbLatencyMs,
+                        "--meetups.search.registration.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--springfox.documentation.enabled=false");
+        BenchmarkApplication.load(context, ROWS);
+        List<Object[]> meetups = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            meetups.add(new Object[]{i + 1, EVENT, i + 1, Date.valueOf("2021-10-10"), 0});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into meetup (id, event, id_registration, meetup_date, version) values (?, ?, ?, ?, ?)", meetups);
+
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/meetups?event=Womakerscode%20Dados&size=20"))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        InFlightRequests inFlight = context.getBean(InFlightRequests.class);
+        System.out.printf("%nmode=%s max in-flight requests=%d errors=%d%n", mode, inFlight.max.get(), errors.get());
+        context.close();
+    }
+
+    @Benchmark
+    public int listMeetups() throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            errors.incrementAndGet();
+        }
+        return response.statusCode();
+    }
+
+    // a aplicação inteira, menos as classes de benchmark que estão no mesmo pacote base
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Registration.class)
+    @EnableJpaRepositories(basePackageClasses = RegistrationRepository.class)
+    @ComponentScan(basePackages = "com.bibs.meetups", excludeFilters = {
+            @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.bibs\\.meetups\\.benchmark\\..*"),
+            @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = MeetupsAppointmentServiceApplication.class)})
+    static class WebApplication {
+
+        @Bean
+        static BeanPostProcessor slowDataSource(@Value("${benchmark.db-latency-ms}") long latencyMs) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource) || latencyMs <= 0) {
+                        return bean;
+                    }
+                    // segura a conexão pelo tempo de uma ida e volta ao banco
+                    return new DelegatingDataSource((DataSource) bean) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            Connection connection = super.getConnection();
+                            try {
+                                Thread.sleep(latencyMs);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return connection;
+                        }
+                    };
+                }
+            };
+        }
+
+        @Bean
+        InFlightRequests inFlightRequests() {
+            return new InFlightRequests();
+        }
+
+        @Bean
+        Filter inFlightFilter(InFlightRequests inFlight) {
+            return (request, response, chain) -> {
+                inFlight.enter();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    if (request.isAsyncStarted()) {
+                        request.getAsyncContext().addListener(inFlight);
+                    } else {
+                        inFlight.leave();
+                    }
+                }
+            };
+        }
+    }
+
+    static class InFlightRequests implements AsyncListener {
+
+        private final AtomicInteger current = new AtomicInteger();
+
+        private final AtomicInteger max = new AtomicInteger();
+
+        void enter() {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+        }
+
+        void leave() {
+            current.decrementAndGet();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            leave();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
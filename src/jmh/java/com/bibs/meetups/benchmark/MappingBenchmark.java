@@ -0,0 +1,86 @@
+package com.bibs.meetups.benchmark;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.controller.dto.RegistrationDTO;
+import com.bibs.meetups.controller.mapper.MeetupMapper;
+import com.bibs.meetups.controller.mapper.RegistrationMapper;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.Registration;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// mappers escritos à mão contra o ModelMapper que os controllers usavam; rode com o profiler gc para ver alocação por operação
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private Registration registration;
+
+    private RegistrationDTO registrationDTO;
+
+    private Meetup meetup;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        registration = Registration.builder()
+                .id(101)
+                .name("Paula")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration("001")
+                .build();
+        registrationDTO = RegistrationMapper.toDTO(registration);
+        meetup = Meetup.builder().id(7).event("Womakerscode Dados").registration(registration).build();
+    }
+
+    @Benchmark
+    public RegistrationDTO registrationToDTOHandWritten() {
+        return RegistrationMapper.toDTO(registration);
+    }
+
+    @Benchmark
+    public RegistrationDTO registrationToDTOModelMapper() {
+        return modelMapper.map(registration, RegistrationDTO.class);
+    }
+
+    @Benchmark
+    public Registration registrationToEntityHandWritten() {
+        return RegistrationMapper.toEntity(registrationDTO);
+    }
+
+    @Benchmark
+    public Registration registrationToEntityModelMapper() {
+        return modelMapper.map(registrationDTO, Registration.class);
+    }
+
+    @Benchmark
+    public MeetupDTO meetupToDTOHandWritten() {
+        return MeetupMapper.toDTO(meetup);
+    }
+
+    @Benchmark
+    public MeetupDTO meetupToDTOModelMapper() {
+        // como o MeetupController.find fazia: duas conversões por meetup
+        MeetupDTO dto = modelMapper.map(meetup, MeetupDTO.class);
+        dto.setRegistration(modelMapper.map(meetup.getRegistration(), RegistrationDTO.class));
+        return dto;
+    }
+}
@@ -0,0 +1,90 @@
+package com.bibs.meetups.benchmark;
+
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.RegistrationRepository;
+import com.bibs.meetups.service.RegistrationService;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.cache.RegistrationCache;
+import com.bibs.meetups.service.impl.RegistrationServiceImpl;
+import com.bibs.meetups.service.outbox.Outbox;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// busca por substring: índice de trigramas contra o findAll(example, pageRequest) com LIKE '%...%'
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RegistrationSearchBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"paula so", "ula", "REG-00042"})
+    public String query;
+
+    private ConfigurableApplicationContext context;
+
+    private RegistrationService indexed;
+
+    private RegistrationService example;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.load(context, rows);
+
+        RegistrationRepository repository = context.getBean(RegistrationRepository.class);
+        RegistrationSearchIndex searchIndex = context.getBean(RegistrationSearchIndex.class);
+        searchIndex.rebuild();
+
+        indexed = context.getBean(RegistrationService.class);
+        // índice desligado: o serviço cai sempre no caminho do Example
+        example = new RegistrationServiceImpl(repository,
+                new RegistrationCache(1, Duration.ofSeconds(1)),
+                new RegistrationSearchIndex(repository, false),
+                context.getBean(Outbox.class),
+                context.getBean(AttendanceCounters.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Registration> searchIndex() {
+        return indexed.find(filter(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Registration> exampleContaining() {
+        return example.find(filter(), PageRequest.of(0, 20));
+    }
+
+    private Registration filter() {
+        return query.startsWith("REG-")
+                ? Registration.builder().registration(query).build()
+                : Registration.builder().name(query).build();
+    }
+}
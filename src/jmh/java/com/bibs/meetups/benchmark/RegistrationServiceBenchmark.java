@@ -0,0 +1,80 @@
+package com.bibs.meetups.benchmark;
+
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.service.RegistrationService;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationServiceBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private ConfigurableApplicationContext context;
+
+    private RegistrationService registrationService;
+
+    private final AtomicInteger sequence = new AtomicInteger(ROWS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.load(context, ROWS);
+        // os ids carregados por JDBC ficam abaixo do que a sequence do Hibernate vai gerar
+        context.getBean(JdbcTemplate.class)
+                .execute("alter sequence registration_seq restart with " + (ROWS + 1_000));
+        context.getBean(RegistrationSearchIndex.class).rebuild();
+        registrationService = context.getBean(RegistrationService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Registration save() {
+        int i = sequence.incrementAndGet();
+        return registrationService.save(Registration.builder()
+                .name(BenchmarkApplication.name(i))
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration(BenchmarkApplication.registration(i))
+                .build());
+    }
+
+    @Benchmark
+    public Page<Registration> findByName() {
+        return registrationService.find(Registration.builder().name("paula so").build(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Registration> findByRegistrationAndDate() {
+        // dateOfRegistration no filtro força o caminho do Example
+        return registrationService.find(Registration.builder().registration("REG-00042").dateOfRegistration(LocalDate.of(2022, 4, 4)).build(),
+                PageRequest.of(0, 20));
+    }
+}
@@ -1,9 +1,7 @@
 package com.bibs.meetups;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class MeetupsAppointmentServiceApplication {
@@ -11,9 +9,4 @@ public class MeetupsAppointmentServiceApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(MeetupsAppointmentServiceApplication.class, args);
 	}
-
-	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
-	}
 }
@@ -0,0 +1,58 @@
+package com.bibs.meetups.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+
+// registra na subida o pool e o batch que valeram de fato, e avisa das combinações que seguram a aplicação
+@Slf4j
+@Component
+public class DataSourceSettingsLogger {
+
+    private final DataSource dataSource;
+
+    private final JpaProperties jpaProperties;
+
+    private final RequestExecutor requestExecutor;
+
+    private final int dbThreads;
+
+    public DataSourceSettingsLogger(DataSource dataSource, JpaProperties jpaProperties, RequestExecutor requestExecutor,
+                                    @Value("${meetups.execution.db-threads:16}") int dbThreads) {
+        this.dataSource = dataSource;
+        this.jpaProperties = jpaProperties;
+        this.requestExecutor = requestExecutor;
+        this.dbThreads = dbThreads;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logSettings() throws SQLException {
+        Map<String, String> jpa = jpaProperties.getProperties();
+        String batchSize = jpa.getOrDefault("hibernate.jdbc.batch_size", "disabled");
+        log.info("JDBC batch_size={} order_inserts={} order_updates={}", batchSize,
+                jpa.getOrDefault("hibernate.order_inserts", "false"),
+                jpa.getOrDefault("hibernate.order_updates", "false"));
+
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            log.info("DataSource {} is not a Hikari pool", dataSource.getClass().getName());
+            return;
+        }
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        log.info("Connection pool {} url={} maximumPoolSize={} minimumIdle={} connectionTimeout={}ms autoCommit={}",
+                pool.getPoolName(), pool.getJdbcUrl(), pool.getMaximumPoolSize(), pool.getMinimumIdle(),
+                pool.getConnectionTimeout(), pool.isAutoCommit());
+
+        if (requestExecutor.getMode() == ExecutionMode.ASYNC && dbThreads >= pool.getMaximumPoolSize()) {
+            log.warn("meetups.execution.db-threads={} is not below the pool size {}: listings can take every connection " +
+                    "and writes will wait up to {}ms for one", dbThreads, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.bibs.meetups.config;
+
+// como as requisições rodam (meetups.execution.mode):
+// platform - pool de threads do Tomcat, o modelo de sempre
+// virtual  - uma thread virtual por requisição (JDK 21+; em JDK anterior fica no platform)
+// async    - as listagens devolvem CompletableFuture e rodam num pool limitado de banco, liberando a thread do Tomcat
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL,
+    ASYNC
+}
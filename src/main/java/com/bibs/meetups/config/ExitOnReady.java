@@ -0,0 +1,32 @@
+package com.bibs.meetups.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// execução de treino do AppCDS (./gradlew cdsArchive): sobe a aplicação inteira e sai assim que ela fica pronta,
+// depois dos outros listeners da subida, para que as classes deles também entrem no arquivo
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "meetups.startup.exit-on-ready", havingValue = "true")
+public class ExitOnReady {
+
+    private final ConfigurableApplicationContext context;
+
+    public ExitOnReady(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void exit() {
+        log.info("meetups.startup.exit-on-ready=true, shutting down");
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,62 @@
+package com.bibs.meetups.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+
+// cabeçalhos de cache HTTP: itens revalidam sempre pelo ETag (304 sem corpo), listagens ficam um tempo curto no cliente
+@Component
+public class HttpCachePolicy {
+
+    private final CacheControl list;
+
+    private final CacheControl item = CacheControl.noCache().cachePrivate();
+
+    public HttpCachePolicy(@Value("${meetups.http.list-max-age:10s}") Duration listMaxAge) {
+        this.list = CacheControl.maxAge(listMaxAge).cachePrivate();
+    }
+
+    public CacheControl list() {
+        return list;
+    }
+
+    public CacheControl item() {
+        return item;
+    }
+
+    // ETag forte a partir das colunas @Version de tudo que entra na representação; null se alguma faltar
+    public static String etag(Integer... versions) {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        for (Integer version : versions) {
+            if (version == null) {
+                return null;
+            }
+            etag.add(version.toString());
+        }
+        return etag.toString();
+    }
+
+    // versão pedida no If-Match de um recurso com ETag de uma versão só; null (ausente ou *) aceita qualquer uma
+    public static Integer version(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        if (etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            etag = etag.substring(1, etag.length() - 1);
+        }
+        try {
+            return Integer.valueOf(etag);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid If-Match");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bibs.meetups.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+// métricas do caminho quente, expostas em /actuator/prometheus:
+// @Timed nos serviços, comandos SQL por requisição e a latência por endpoint (http.server.requests)
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    @Bean
+    TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer queryCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, QueryCounter.INSPECTOR);
+    }
+
+    @Bean
+    MappedInterceptor queryCountInterceptor(MeterRegistry registry) {
+        return new MappedInterceptor(new String[]{"/api/**"}, new QueryCountInterceptor(registry));
+    }
+}
@@ -0,0 +1,56 @@
+package com.bibs.meetups.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// publica quantos comandos SQL cada requisição executou, por endpoint (meetups.db.queries)
+class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String COUNTER = QueryCountInterceptor.class.getName() + ".counter";
+
+    private final MeterRegistry registry;
+
+    QueryCountInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // no dispatch assíncrono o contador continua o mesmo da primeira passada
+        AtomicInteger counter = (AtomicInteger) request.getAttribute(COUNTER);
+        if (counter == null) {
+            counter = new AtomicInteger();
+            request.setAttribute(COUNTER, counter);
+        }
+        QueryCounter.bind(counter);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter.unbind();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryCounter.unbind();
+        AtomicInteger counter = (AtomicInteger) request.getAttribute(COUNTER);
+        if (counter == null) {
+            return;
+        }
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("meetups.db.queries")
+                .description("SQL statements executed per request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+                .register(registry)
+                .record(counter.get());
+    }
+}
@@ -0,0 +1,51 @@
+package com.bibs.meetups.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// conta os comandos SQL preparados pela requisição corrente: o Hibernate passa cada um pelo inspector,
+// que só incrementa o contador ligado à thread e devolve o SQL intacto
+public final class QueryCounter implements StatementInspector {
+
+    static final QueryCounter INSPECTOR = new QueryCounter();
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger counter = CURRENT.get();
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+        return sql;
+    }
+
+    static void bind(AtomicInteger counter) {
+        CURRENT.set(counter);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    // leva o contador da requisição para a thread que vai executar o trabalho (modo async)
+    static <T> Supplier<T> propagate(Supplier<T> work) {
+        AtomicInteger counter = CURRENT.get();
+        if (counter == null) {
+            return work;
+        }
+        return () -> {
+            bind(counter);
+            try {
+                return work.get();
+            } finally {
+                unbind();
+            }
+        };
+    }
+}
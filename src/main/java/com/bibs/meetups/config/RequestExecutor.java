@@ -0,0 +1,64 @@
+package com.bibs.meetups.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// executa o trabalho de banco das listagens: na própria thread da requisição, ou no modo async
+// num pool limitado (threads + fila); com a fila cheia a requisição recebe 503 em vez de esperar.
+// Fora do modo async devolve o próprio resultado, porque um CompletableFuture já completo ainda
+// faria o Spring MVC abrir um dispatch assíncrono
+@Slf4j
+@Component
+public class RequestExecutor implements DisposableBean {
+
+    private final ExecutionMode mode;
+
+    private final ThreadPoolExecutor pool;
+
+    public RequestExecutor(@Value("${meetups.execution.mode:platform}") ExecutionMode mode,
+                           @Value("${meetups.execution.db-threads:16}") int threads,
+                           @Value("${meetups.execution.db-queue:200}") int queue) {
+        this.mode = mode;
+        if (mode == ExecutionMode.ASYNC) {
+            this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queue), new CustomizableThreadFactory("db-"));
+            log.info("Listings will run on a database executor with {} threads and a queue of {}", threads, queue);
+        } else {
+            this.pool = null;
+        }
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public <T> Object supply(Supplier<T> work) {
+        if (pool == null) {
+            return work.get();
+        }
+        try {
+            return CompletableFuture.supplyAsync(QueryCounter.propagate(work), pool);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent requests");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.bibs.meetups.config.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+// limite de requisições simultâneas que se ajusta pela latência (AIMD): sobe devagar enquanto a latência
+// fica perto da mínima observada e cai 10% quando ela passa da tolerância ou a requisição falha com 5xx.
+// Assim a fila se forma aqui, onde vira 503 na hora, e não no pool de conexões
+final class ConcurrencyLimiter {
+
+    private static final double BACKOFF = 0.9;
+
+    // de tempos em tempos a latência mínima é medida de novo, para acompanhar mudanças no banco
+    private static final int MIN_RTT_WINDOW = 1000;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong limit;
+
+    private final AtomicLong minRtt = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicInteger samples = new AtomicInteger();
+
+    ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = new AtomicLong(Double.doubleToLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        if (dropped) {
+            adjust(value -> value * BACKOFF);
+            return;
+        }
+        if (samples.incrementAndGet() % MIN_RTT_WINDOW == 0) {
+            minRtt.set(rttNanos);
+        }
+        long min = minRtt.accumulateAndGet(rttNanos, Math::min);
+        if (rttNanos > min * tolerance) {
+            adjust(value -> value * BACKOFF);
+        } else if (current * 2 >= getLimit()) {
+            // só cresce quando o limite está de fato sendo usado
+            adjust(value -> value + 1 / value);
+        }
+    }
+
+    int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void adjust(DoubleUnaryOperator function) {
+        limit.updateAndGet(bits -> {
+            double value = function.applyAsDouble(Double.longBitsToDouble(bits));
+            return Double.doubleToLongBits(Math.max(minLimit, Math.min(maxLimit, value)));
+        });
+    }
+}
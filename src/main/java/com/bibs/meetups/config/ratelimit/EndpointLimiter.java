@@ -0,0 +1,82 @@
+package com.bibs.meetups.config.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+import java.time.Duration;
+
+// os limites de um endpoint: um balde por cliente (os ociosos saem do cache) e um limite de concorrência comum a todos
+final class EndpointLimiter {
+
+    private final String name;
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final Cache<String, TokenBucket> clients;
+
+    private final ConcurrencyLimiter concurrency;
+
+    private final Counter rateRejections;
+
+    private final Counter concurrencyRejections;
+
+    EndpointLimiter(String name, double permitsPerSecond, int burst, long maxClients, ConcurrencyLimiter concurrency) {
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        // um balde parado há mais tempo do que leva para encher já está cheio: pode ser descartado
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos((long) (burst * 1_000_000_000d / permitsPerSecond)).plusSeconds(1))
+                .build();
+        this.concurrency = concurrency;
+        this.rateRejections = rejections("rate");
+        this.concurrencyRejections = rejections("concurrency");
+        Gauge.builder("meetups.concurrency.limit", concurrency, ConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("endpoint", name)
+                .register(Metrics.globalRegistry);
+        Gauge.builder("meetups.concurrency.in.flight", concurrency, ConcurrencyLimiter::getInFlight)
+                .description("Requests in flight under the concurrency limit")
+                .tag("endpoint", name)
+                .register(Metrics.globalRegistry);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // 0 se o cliente ainda tem permissão; senão, nanos até a próxima
+    long tryAcquire(String client) {
+        long wait = clients.get(client, key -> new TokenBucket(permitsPerSecond, burst)).tryAcquire(System.nanoTime());
+        if (wait > 0) {
+            rateRejections.increment();
+        }
+        return wait;
+    }
+
+    boolean tryEnter() {
+        if (concurrency.tryAcquire()) {
+            return true;
+        }
+        concurrencyRejections.increment();
+        return false;
+    }
+
+    void exit(long rttNanos, boolean dropped) {
+        concurrency.release(rttNanos, dropped);
+    }
+
+    private Counter rejections(String reason) {
+        return Counter.builder("meetups.rate.limit.rejections")
+                .description("Requests shed by the rate and concurrency limiters")
+                .tag("endpoint", name)
+                .tag("reason", reason)
+                .register(Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,17 @@
+package com.bibs.meetups.config.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "meetups.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    MappedInterceptor rateLimitInterceptor(Environment environment) {
+        return new MappedInterceptor(new String[]{"/api/**"}, new RateLimitInterceptor(environment));
+    }
+}
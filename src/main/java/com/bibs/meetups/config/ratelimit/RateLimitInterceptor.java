@@ -0,0 +1,117 @@
+package com.bibs.meetups.config.ratelimit;
+
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// aplica os limites dos métodos com @RateLimited antes do controller: quem passou da cota recebe 429,
+// e com o limite de concorrência tomado a resposta é 503, sem chegar a pedir conexão ao pool
+class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STARTED = RateLimitInterceptor.class.getName() + ".started";
+
+    private static final String LIMITER = RateLimitInterceptor.class.getName() + ".limiter";
+
+    private final Environment environment;
+
+    private final String clientHeader;
+
+    private final Set<String> apiKeys;
+
+    private final long maxClients;
+
+    private final ConcurrentMap<String, EndpointLimiter> endpoints = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Method, Optional<EndpointLimiter>> handlers = new ConcurrentHashMap<>();
+
+    RateLimitInterceptor(Environment environment) {
+        this.environment = environment;
+        this.clientHeader = environment.getProperty("meetups.rate-limit.client-header", "X-API-Key");
+        this.apiKeys = Arrays.stream(environment.getProperty("meetups.rate-limit.api-keys", String[].class, new String[0]))
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxClients = environment.getProperty("meetups.rate-limit.max-clients", Long.class, 100_000L);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod) || request.getAttribute(STARTED) != null) {
+            return true;
+        }
+        EndpointLimiter limiter = limiter((HandlerMethod) handler).orElse(null);
+        if (limiter == null) {
+            return true;
+        }
+
+        long wait = limiter.tryAcquire(client(request));
+        if (wait > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(wait) + 1));
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+        }
+        if (!limiter.tryEnter()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent requests");
+        }
+        request.setAttribute(LIMITER, limiter);
+        request.setAttribute(STARTED, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        EndpointLimiter limiter = (EndpointLimiter) request.getAttribute(LIMITER);
+        if (limiter == null) {
+            return;
+        }
+        request.removeAttribute(LIMITER);
+        long started = (Long) request.getAttribute(STARTED);
+        // erro de servidor (timeout de conexão, banco fora) conta como sobrecarga
+        limiter.exit(System.nanoTime() - started, ex != null || response.getStatus() >= 500);
+    }
+
+    // o cliente é a API key só quando ela é conhecida; qualquer outro valor no cabeçalho cai no endereço de origem,
+    // senão trocar de key a cada requisição zeraria a cota e encheria o mapa de buckets
+    private String client(HttpServletRequest request) {
+        String key = request.getHeader(clientHeader);
+        return key != null && apiKeys.contains(key) ? "key:" + key : "ip:" + request.getRemoteAddr();
+    }
+
+    private Optional<EndpointLimiter> limiter(HandlerMethod handler) {
+        return handlers.computeIfAbsent(handler.getMethod(), method ->
+                Optional.ofNullable(handler.getMethodAnnotation(RateLimited.class))
+                        .map(rateLimited -> endpoints.computeIfAbsent(rateLimited.value(), this::create)));
+    }
+
+    private EndpointLimiter create(String name) {
+        ConcurrencyLimiter concurrency = new ConcurrencyLimiter(
+                property(name, "initial-concurrency", Integer.class, 20),
+                property(name, "min-concurrency", Integer.class, 1),
+                property(name, "max-concurrency", Integer.class, 200),
+                property(name, "latency-tolerance", Double.class, 2.0));
+        return new EndpointLimiter(name,
+                property(name, "permits-per-second", Double.class, 10.0),
+                property(name, "burst", Integer.class, 20),
+                maxClients,
+                concurrency);
+    }
+
+    private <T> T property(String endpoint, String key, Class<T> type, T defaultValue) {
+        T value = environment.getProperty("meetups.rate-limit." + endpoint + "." + key, type);
+        return value != null ? value : environment.getProperty("meetups.rate-limit.default." + key, type, defaultValue);
+    }
+}
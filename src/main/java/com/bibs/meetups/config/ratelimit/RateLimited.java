@@ -0,0 +1,15 @@
+package com.bibs.meetups.config.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// limita o endpoint por cliente (token bucket) e pela concorrência total (limite adaptativo).
+// Os valores vêm de meetups.rate-limit.<nome>.*, com meetups.rate-limit.default.* para o que faltar
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    String value();
+}
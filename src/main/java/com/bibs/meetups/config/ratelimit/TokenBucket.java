@@ -0,0 +1,34 @@
+package com.bibs.meetups.config.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// token bucket no formato GCRA: guarda só o instante em que o balde volta a ficar cheio,
+// então cada requisição custa um CAS, sem lock e sem thread para reabastecer
+final class TokenBucket {
+
+    private final long interval;
+
+    private final long tolerance;
+
+    private final AtomicLong full = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.interval = Math.max(1, (long) (1_000_000_000d / permitsPerSecond));
+        this.tolerance = interval * burst;
+    }
+
+    // 0 se liberou; senão, quantos nanos até a próxima permissão
+    long tryAcquire(long now) {
+        while (true) {
+            long current = full.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (full.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
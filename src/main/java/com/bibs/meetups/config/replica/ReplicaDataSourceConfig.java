@@ -0,0 +1,72 @@
+package com.bibs.meetups.config.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// com meetups.datasource.replica.url o DataSource da aplicação passa a ser o roteador: o primário continua
+// configurado por spring.datasource.*, a réplica por meetups.datasource.replica.*
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "meetups.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(properties.getName())) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("meetups.datasource.replica.hikari")
+    HikariDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                       @Value("${meetups.datasource.replica.url}") String url,
+                                       @Value("${meetups.datasource.replica.username:}") String username,
+                                       @Value("${meetups.datasource.replica.password:}") String password,
+                                       @Value("${meetups.datasource.replica.migrate:false}") boolean migrate) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("meetups-replica");
+        // o Hibernate é um só para os dois pools: com provider_disables_autocommit ele não desliga o autocommit,
+        // então a réplica herda o do primário (meetups.datasource.replica.hikari.auto-commit ainda sobrescreve)
+        dataSource.setAutoCommit(primaryDataSource.isAutoCommit());
+        // só para réplicas de mentira (um segundo H2 local): numa réplica de verdade o esquema vem do primário
+        if (migrate) {
+            Flyway.configure().dataSource(dataSource).load().migrate();
+        }
+        return dataSource;
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                        @Value("${meetups.datasource.replica.max-lag:2s}") Duration maxLag) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, maxLag);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                          ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor));
+    }
+}
@@ -0,0 +1,89 @@
+package com.bibs.meetups.config.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+// mede o atraso da réplica por uma linha de heartbeat: grava o horário no primário e lê de volta na réplica.
+// Funciona com qualquer replicação (física ou lógica) e também com dois H2 locais, onde nada replica
+@Slf4j
+public class ReplicaLagMonitor {
+
+    static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private final JdbcTemplate primary;
+
+    private final TransactionTemplate primaryTransaction;
+
+    private final JdbcTemplate replica;
+
+    private final long maxLagMillis;
+
+    // até o primeiro heartbeat a réplica não é usada
+    private volatile long lagMillis = UNAVAILABLE;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag) {
+        this.primary = new JdbcTemplate(primary);
+        this.primaryTransaction = new TransactionTemplate(new DataSourceTransactionManager(primary));
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLag.toMillis();
+        Gauge.builder("meetups.replica.lag", this, ReplicaLagMonitor::lagSeconds)
+                .baseUnit("seconds")
+                .register(Metrics.globalRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${meetups.datasource.replica.heartbeat-interval:PT1S}")
+    public void heartbeat() {
+        try {
+            primaryTransaction.executeWithoutResult(status -> primary.update(
+                    "update replica_heartbeat set beat_at = ? where id = 1", Timestamp.from(Instant.now())));
+        } catch (DataAccessException e) {
+            // sem heartbeat novo o atraso lido só cresce, e as leituras acabam voltando para o primário
+            log.warn("Could not write the replica heartbeat to the primary: {}", e.getMessage());
+        }
+        measure();
+    }
+
+    void measure() {
+        long lag;
+        try {
+            Timestamp beat = replica.queryForObject("select beat_at from replica_heartbeat where id = 1", Timestamp.class);
+            lag = beat == null ? UNAVAILABLE : Math.max(0, Duration.between(beat.toInstant(), Instant.now()).toMillis());
+        } catch (DataAccessException e) {
+            log.debug("Could not read the replica heartbeat", e);
+            lag = UNAVAILABLE;
+        }
+        boolean wasUsable = isUsable();
+        lagMillis = lag;
+        if (wasUsable != isUsable()) {
+            if (isUsable()) {
+                log.info("Replica caught up (lag {} ms), read-only transactions go to the replica", lag);
+            } else {
+                log.warn("Replica {}, read-only transactions go to the primary",
+                        lag == UNAVAILABLE ? "unavailable" : "lagging " + lag + " ms");
+            }
+        }
+    }
+
+    public boolean isUsable() {
+        return lagMillis <= maxLagMillis;
+    }
+
+    public Duration getLag() {
+        return lagMillis == UNAVAILABLE ? null : Duration.ofMillis(lagMillis);
+    }
+
+    private double lagSeconds() {
+        return lagMillis == UNAVAILABLE ? Double.NaN : lagMillis / 1000.0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bibs.meetups.config.replica;
+
+import java.util.function.Supplier;
+
+// leituras que precisam ver o último commit (as que enchem caches e estruturas em memória) ficam no primário,
+// mesmo dentro de uma transação somente leitura; sem réplica configurada não faz diferença
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (PRIMARY.get() != null) {
+            return action.get();
+        }
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    public static void onPrimary(Runnable action) {
+        onPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static boolean isPinnedToPrimary() {
+        return PRIMARY.get() != null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bibs.meetups.config.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// transações somente leitura vão para a réplica enquanto o atraso dela estiver dentro do limite; o resto, para o
+// primário. Precisa ficar atrás de um LazyConnectionDataSourceProxy: o JpaTransactionManager pede a conexão antes
+// de marcar a transação como somente leitura
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final Counter REPLICA_READS = Metrics.counter("meetups.replica.reads");
+
+    private static final Counter FALLBACKS = Metrics.counter("meetups.replica.fallbacks");
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReplicaRouting.isPinnedToPrimary()) {
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.isUsable()) {
+            FALLBACKS.increment();
+            return Target.PRIMARY;
+        }
+        REPLICA_READS.increment();
+        return Target.REPLICA;
+    }
+}
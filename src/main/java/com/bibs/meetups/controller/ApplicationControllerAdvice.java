@@ -2,6 +2,8 @@ package com.bibs.meetups.controller;
 
 import com.bibs.meetups.controller.exceptions.ApiErrors;
 import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -25,6 +27,14 @@ public class ApplicationControllerAdvice {
     @ExceptionHandler(BusinessException.class) // mesmo parâmetro de dentro
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleBusinessException(BusinessException e) {
+        countRejection(e, HttpStatus.BAD_REQUEST);
+        return new ApiErrors(e);
+    }
+
+    @ExceptionHandler(ConflictException.class) // mais específico que o BusinessException
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErrors handleConflictException(ConflictException e) {
+        countRejection(e, HttpStatus.CONFLICT);
         return new ApiErrors(e);
     }
 
@@ -34,4 +44,11 @@ public class ApplicationControllerAdvice {
         return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
     }
 
+    // as mensagens de regra de negócio são fixas (duplicado, lotado, conflito...), então servem de tag
+    private static void countRejection(BusinessException e, HttpStatus status) {
+        Metrics.counter("meetups.business.rejections",
+                "reason", String.valueOf(e.getMessage()),
+                "status", String.valueOf(status.value())).increment();
+    }
+
 }
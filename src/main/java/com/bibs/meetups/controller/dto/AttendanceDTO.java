@@ -0,0 +1,22 @@
+package com.bibs.meetups.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// inscrições de um evento (event) ou meetups de um registration (registrationId)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AttendanceDTO {
+
+    private String event;
+
+    private Integer registrationId;
+
+    private long count;
+}
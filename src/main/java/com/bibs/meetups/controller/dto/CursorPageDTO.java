@@ -0,0 +1,25 @@
+package com.bibs.meetups.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+
+    // token opaco para a próxima página, nulo na última
+    private String next;
+
+    // só é calculado quando pedido com count=true
+    private Long totalElements;
+}
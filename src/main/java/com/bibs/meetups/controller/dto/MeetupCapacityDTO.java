@@ -0,0 +1,26 @@
+package com.bibs.meetups.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MeetupCapacityDTO {
+
+    @NotEmpty
+    private String event;
+
+    @NotNull
+    @PositiveOrZero
+    private Integer capacity;
+
+    private Integer reserved;
+}
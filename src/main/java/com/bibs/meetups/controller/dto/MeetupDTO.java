@@ -1,9 +1,13 @@
 package com.bibs.meetups.controller.dto;
+import com.bibs.meetups.controller.mapper.DateMapper;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Pattern;
+import java.time.LocalDate;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -16,6 +20,21 @@ public class MeetupDTO {
 
     private String event;
 
+    @Pattern(regexp = "\\d{2}/\\d{2}/\\d{4}", message = "must be dd/MM/yyyy")
+    private String meetupDate;
+
     private RegistrationDTO registration;
 
+    // usado pela projeção JPQL (select new ...) para trazer o meetup e o registration em uma consulta;
+    // com o left join um meetup sem registration chega com as colunas dele nulas
+    public MeetupDTO(Integer id, String event, LocalDate meetupDate, Integer registrationId, String registrationName,
+                     LocalDate dateOfRegistration, String registrationAttribute) {
+        this.id = id;
+        this.event = event;
+        this.meetupDate = DateMapper.format(meetupDate);
+        this.registrationAttribute = registrationAttribute;
+        this.registration = registrationId == null ? null
+                : new RegistrationDTO(registrationId, registrationName, dateOfRegistration, registrationAttribute);
+    }
+
 }
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Data
 @AllArgsConstructor
@@ -14,4 +17,11 @@ public class MeetupFilterDTO {
     private String registration;
 
     private  String event;
+
+    // intervalo fechado de meetupDate (?from=01/05/2022&to=07/05/2022); qualquer um dos lados pode ficar aberto
+    @DateTimeFormat(pattern = "dd/MM/yyyy")
+    private LocalDate from;
+
+    @DateTimeFormat(pattern = "dd/MM/yyyy")
+    private LocalDate to;
 }
@@ -0,0 +1,31 @@
+package com.bibs.meetups.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RegistrationBatchResultDTO {
+
+    public enum Status {
+        CREATED,
+        DUPLICATED,
+        INVALID
+    }
+
+    private Integer index;
+
+    private Integer id;
+
+    private String registration;
+
+    private Status status;
+
+    private List<String> errors;
+}
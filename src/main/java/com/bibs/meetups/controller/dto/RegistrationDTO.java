@@ -5,7 +5,10 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.bibs.meetups.controller.mapper.DateMapper;
+
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Pattern;
 import java.time.LocalDate;
 
 @Data
@@ -20,8 +23,14 @@ public class RegistrationDTO {
     private String name;
 
     @NotEmpty
+    @Pattern(regexp = "\\d{2}/\\d{2}/\\d{4}", message = "must be dd/MM/yyyy")
     private String dateOfRegistration;
 
     @NotEmpty
     private String registration;
+
+    // usado pela projeção JPQL (select new ...), que traz a coluna já como LocalDate
+    public RegistrationDTO(Integer id, String name, LocalDate dateOfRegistration, String registration) {
+        this(id, name, DateMapper.format(dateOfRegistration), registration);
+    }
 }
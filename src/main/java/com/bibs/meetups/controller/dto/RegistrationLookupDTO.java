@@ -0,0 +1,26 @@
+package com.bibs.meetups.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+// ids e/ou atributos registration a resolver numa única chamada
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RegistrationLookupDTO {
+
+    public static final int MAX_KEYS = 1000;
+
+    @Size(max = MAX_KEYS, message = "At most 1000 ids per lookup")
+    private List<@NotNull Integer> ids;
+
+    @Size(max = MAX_KEYS, message = "At most 1000 registrations per lookup")
+    private List<@NotNull String> registrations;
+}
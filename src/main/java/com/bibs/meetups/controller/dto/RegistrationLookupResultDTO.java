@@ -0,0 +1,20 @@
+package com.bibs.meetups.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// só o que foi encontrado, na ordem pedida; a chave ausente não existe
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RegistrationLookupResultDTO {
+
+    private Map<Integer, RegistrationDTO> ids;
+
+    private Map<String, RegistrationDTO> registrations;
+}
@@ -0,0 +1,35 @@
+package com.bibs.meetups.controller.mapper;
+
+import com.bibs.meetups.exception.BusinessException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+// as colunas são DATE, mas a API continua trocando dd/MM/yyyy
+public final class DateMapper {
+
+    public static final String PATTERN = "dd/MM/uuuu";
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(PATTERN)
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private DateMapper() {
+    }
+
+    public static LocalDate parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value, FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("Invalid date, expected dd/MM/yyyy");
+        }
+    }
+
+    public static String format(LocalDate value) {
+        return value == null ? null : FORMATTER.format(value);
+    }
+}
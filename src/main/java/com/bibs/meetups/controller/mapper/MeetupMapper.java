@@ -0,0 +1,47 @@
+package com.bibs.meetups.controller.mapper;
+
+import com.bibs.meetups.controller.dto.MeetupCapacityDTO;
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.MeetupCapacity;
+import com.bibs.meetups.model.entity.Registration;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// conversão escrita à mão, sem reflexão no caminho da requisição
+public final class MeetupMapper {
+
+    private static final Timer PAGE_MAPPING = Metrics.timer("meetups.mapping", "type", "meetup");
+
+    private MeetupMapper() {
+    }
+
+    public static MeetupDTO toDTO(Meetup meetup) {
+        if (meetup == null) {
+            return null;
+        }
+        Registration registration = meetup.getRegistration();
+        return new MeetupDTO(
+                meetup.getId(),
+                registration != null ? registration.getRegistration() : null,
+                meetup.getEvent(),
+                DateMapper.format(meetup.getMeetupDate()),
+                RegistrationMapper.toDTO(registration));
+    }
+
+    public static List<MeetupDTO> toDTOs(List<Meetup> meetups) {
+        return PAGE_MAPPING.record(() -> meetups.stream()
+                .map(MeetupMapper::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    public static MeetupCapacityDTO toCapacityDTO(MeetupCapacity capacity) {
+        if (capacity == null) {
+            return null;
+        }
+        return new MeetupCapacityDTO(capacity.getEvent(), capacity.getCapacity(), capacity.getReserved());
+    }
+}
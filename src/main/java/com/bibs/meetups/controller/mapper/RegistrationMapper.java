@@ -0,0 +1,48 @@
+package com.bibs.meetups.controller.mapper;
+
+import com.bibs.meetups.controller.dto.RegistrationDTO;
+import com.bibs.meetups.model.entity.Registration;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// conversão escrita à mão, sem reflexão no caminho da requisição
+public final class RegistrationMapper {
+
+    // tempo de mapear uma página inteira (meetups.mapping), no registry global que o Spring Boot alimenta
+    private static final Timer PAGE_MAPPING = Metrics.timer("meetups.mapping", "type", "registration");
+
+    private RegistrationMapper() {
+    }
+
+    public static RegistrationDTO toDTO(Registration registration) {
+        if (registration == null) {
+            return null;
+        }
+        return new RegistrationDTO(
+                registration.getId(),
+                registration.getName(),
+                DateMapper.format(registration.getDateOfRegistration()),
+                registration.getRegistration());
+    }
+
+    public static List<RegistrationDTO> toDTOs(List<Registration> registrations) {
+        return PAGE_MAPPING.record(() -> registrations.stream()
+                .map(RegistrationMapper::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    public static Registration toEntity(RegistrationDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        Registration registration = new Registration();
+        registration.setId(dto.getId());
+        registration.setName(dto.getName());
+        registration.setDateOfRegistration(DateMapper.parse(dto.getDateOfRegistration()));
+        registration.setRegistration(dto.getRegistration());
+        return registration;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bibs.meetups.controller.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// cursor opaco da paginação por chave (keyset): codifica o último id entregue
+final class CursorToken {
+
+    static final int MAX_SIZE = 1000;
+
+    private static final String PREFIX = "id:";
+
+    private CursorToken() {
+    }
+
+    static String encode(Integer lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Integer decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null; // primeira página
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(value);
+            }
+            return Integer.valueOf(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    static int size(int requested) {
+        return Math.max(1, Math.min(requested, MAX_SIZE));
+    }
+}
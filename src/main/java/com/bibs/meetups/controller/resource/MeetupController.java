@@ -1,23 +1,36 @@
 package com.bibs.meetups.controller.resource;
 
+import com.bibs.meetups.config.HttpCachePolicy;
+import com.bibs.meetups.config.RequestExecutor;
+import com.bibs.meetups.config.ratelimit.RateLimited;
+import com.bibs.meetups.controller.dto.AttendanceDTO;
+import com.bibs.meetups.controller.dto.CursorPageDTO;
+import com.bibs.meetups.controller.dto.MeetupCapacityDTO;
 import com.bibs.meetups.controller.dto.MeetupDTO;
 import com.bibs.meetups.controller.dto.MeetupFilterDTO;
-import com.bibs.meetups.controller.dto.RegistrationDTO;
+import com.bibs.meetups.controller.mapper.DateMapper;
+import com.bibs.meetups.controller.mapper.MeetupMapper;
 import com.bibs.meetups.model.entity.Meetup;
 import com.bibs.meetups.service.MeetupService;
 import com.bibs.meetups.model.entity.Registration;
 import com.bibs.meetups.service.RegistrationService;
+import com.bibs.meetups.service.export.ExportFormat;
+import com.bibs.meetups.service.export.ExportService;
+import com.bibs.meetups.service.idempotency.IdempotentRequests;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.io.IOException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/meetups")
@@ -26,44 +39,98 @@ public class MeetupController {
 
     private final MeetupService meetupService;
     private final RegistrationService registrationService;
-    private final ModelMapper modelMapper;
+    private final RequestExecutor requestExecutor;
+    private final ExportService exportService;
+    private final HttpCachePolicy cachePolicy;
+    private final IdempotentRequests idempotentRequests;
 
 
 
     @PostMapping
+    @RateLimited("meetup-create")
     @ResponseStatus(HttpStatus.CREATED)
-    private Integer create(@RequestBody MeetupDTO meetupDTO) {
-
-        Registration registration = registrationService.getRegistrationByRegistrationAtr(meetupDTO.getRegistrationAttribute())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST));
-        Meetup entity = Meetup.builder()
-                .registration(registration)
-                .event(meetupDTO.getEvent())
-                .meetupDate("10/10/2021")
-                .build();
+    private Integer create(@RequestBody @Valid MeetupDTO meetupDTO,
+                           @RequestHeader(value = IdempotentRequests.HEADER, required = false) String idempotencyKey) {
+
+        // retry com a mesma chave devolve o id da primeira inscrição, sem nova consulta ou insert
+        return idempotentRequests.execute("meetup", idempotencyKey, meetupDTO, Integer.class, () -> {
+            Registration registration = registrationService.getRegistrationByRegistrationAtr(meetupDTO.getRegistrationAttribute())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST));
+            Meetup entity = Meetup.builder()
+                    .registration(registration)
+                    .event(meetupDTO.getEvent())
+                    .meetupDate(DateMapper.parse(meetupDTO.getMeetupDate()))
+                    .build();
 
-        entity = meetupService.save(entity);
-        return entity.getId();
+            entity = meetupService.save(entity);
+            return entity.getId();
+        });
     }
 
 
+    @GetMapping("{id}")
+    public ResponseEntity<MeetupDTO> get(@PathVariable Integer id, WebRequest request) {
+        Meetup meetup = meetupService.getById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        // o registration entra no corpo, então a versão dele também entra no ETag
+        Registration registration = meetup.getRegistration();
+        String etag = HttpCachePolicy.etag(meetup.getVersion(), registration != null ? registration.getVersion() : 0);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(cachePolicy.item());
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(MeetupMapper.toDTO(meetup));
+    }
+
     @GetMapping
-    public Page<MeetupDTO> find(MeetupFilterDTO dto, Pageable pageRequest) {
-        Page<Meetup> result = meetupService.find(dto, pageRequest);
-        List<MeetupDTO> meetups = result
-                .getContent()
-                .stream()
-                .map(entity -> {
-
-                    Registration registration = entity.getRegistration();
-                    RegistrationDTO registrationDTO = modelMapper.map(registration, RegistrationDTO.class);
-
-                    MeetupDTO meetupDTO = modelMapper.map(entity, MeetupDTO.class);
-                    meetupDTO.setRegistration(registrationDTO);
-                    return meetupDTO;
-
-                }).collect(Collectors.toList());
-        return new PageImpl<MeetupDTO>(meetups, pageRequest, result.getTotalElements());
+    public Object find(MeetupFilterDTO dto, Pageable pageRequest) {
+        return requestExecutor.supply(() -> ResponseEntity.ok()
+                .cacheControl(cachePolicy.list())
+                .body(meetupService.findSummaries(dto, pageRequest)));
+    }
+
+    // todos os meetups com o registration de cada um, escritos direto do cursor do banco na resposta
+    @GetMapping("export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportResponse.start(format, "meetups", response);
+        exportService.exportMeetups(exportFormat, response.getOutputStream());
+    }
+
+    // paginação por cursor: ?after=<token>&size=20 (after vazio começa do início), com os mesmos filtros do find
+    @GetMapping(params = "after")
+    public CursorPageDTO<MeetupDTO> findAfter(MeetupFilterDTO dto,
+                                              @RequestParam String after,
+                                              @RequestParam(defaultValue = "20") int size,
+                                              @RequestParam(defaultValue = "false") boolean count) {
+        Slice<Meetup> result = meetupService.findAfter(dto, CursorToken.decode(after), CursorToken.size(size));
+        List<MeetupDTO> meetups = MeetupMapper.toDTOs(result.getContent());
+
+        return CursorPageDTO.<MeetupDTO>builder()
+                .content(meetups)
+                .next(result.hasNext() ? CursorToken.encode(meetups.get(meetups.size() - 1).getId()) : null)
+                .totalElements(count ? meetupService.count(dto) : null)
+                .build();
+    }
+
+    @PutMapping("capacity")
+    public MeetupCapacityDTO setCapacity(@RequestBody @Valid MeetupCapacityDTO dto) {
+        return MeetupMapper.toCapacityDTO(meetupService.setCapacity(dto.getEvent(), dto.getCapacity()));
+    }
+
+    // contador mantido a cada inscrição, sem contar linhas
+    @GetMapping("attendance")
+    public AttendanceDTO getAttendance(@RequestParam String event) {
+        return AttendanceDTO.builder().event(event).count(meetupService.countRegistrations(event)).build();
     }
 
+    @GetMapping("capacity")
+    public MeetupCapacityDTO getCapacity(@RequestParam String event) {
+        return meetupService.getCapacity(event)
+                .map(MeetupMapper::toCapacityDTO)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
 }
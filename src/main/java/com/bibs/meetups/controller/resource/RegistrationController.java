@@ -1,19 +1,50 @@
 package com.bibs.meetups.controller.resource;
 
+import com.bibs.meetups.config.HttpCachePolicy;
+import com.bibs.meetups.config.RequestExecutor;
+import com.bibs.meetups.config.ratelimit.RateLimited;
+import com.bibs.meetups.controller.dto.AttendanceDTO;
+import com.bibs.meetups.controller.dto.CursorPageDTO;
+import com.bibs.meetups.controller.dto.RegistrationBatchResultDTO;
+import com.bibs.meetups.controller.dto.RegistrationLookupDTO;
+import com.bibs.meetups.controller.dto.RegistrationLookupResultDTO;
+import com.bibs.meetups.controller.mapper.DateMapper;
+import com.bibs.meetups.controller.mapper.RegistrationMapper;
+import com.bibs.meetups.exception.BusinessException;
 import com.bibs.meetups.model.entity.Registration;
 import com.bibs.meetups.controller.dto.RegistrationDTO;
 import com.bibs.meetups.service.RegistrationService;
-import org.modelmapper.ModelMapper;
+import com.bibs.meetups.service.export.ExportFormat;
+import com.bibs.meetups.service.export.ExportService;
+import com.bibs.meetups.service.idempotency.IdempotentRequests;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -23,34 +54,200 @@ public class RegistrationController {
 
     private RegistrationService registrationService;
 
-    private ModelMapper modelMapper;
+    private ObjectMapper objectMapper;
 
-    public RegistrationController(RegistrationService registrationService, ModelMapper modelMapper) {
+    private Validator validator;
+
+    private int batchSize;
+
+    private RequestExecutor requestExecutor;
+
+    private ExportService exportService;
+
+    private HttpCachePolicy cachePolicy;
+
+    private IdempotentRequests idempotentRequests;
+
+    public RegistrationController(RegistrationService registrationService,
+                                  ObjectMapper objectMapper,
+                                  Validator validator,
+                                  @Value("${meetups.registration.batch-size:500}") int batchSize,
+                                  RequestExecutor requestExecutor,
+                                  ExportService exportService,
+                                  HttpCachePolicy cachePolicy,
+                                  IdempotentRequests idempotentRequests) {
         this.registrationService = registrationService;
-        this.modelMapper = modelMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.requestExecutor = requestExecutor;
+        this.exportService = exportService;
+        this.cachePolicy = cachePolicy;
+        this.idempotentRequests = idempotentRequests;
     }
 
     @PostMapping
+    @RateLimited("registration-create")
     @ResponseStatus(HttpStatus.CREATED) // aqui botamos CREATED pq é o que passamos no teste de controller (201)
-    public RegistrationDTO create(@RequestBody @Valid RegistrationDTO registrationDTO) {
+    public RegistrationDTO create(@RequestBody @Valid RegistrationDTO registrationDTO,
+                                  @RequestHeader(value = IdempotentRequests.HEADER, required = false) String idempotencyKey) {
 
-        Registration entity = modelMapper.map(registrationDTO, Registration.class);
+        // retry com a mesma chave devolve o registration criado na primeira vez
+        return idempotentRequests.execute("registration", idempotencyKey, registrationDTO, RegistrationDTO.class, () -> {
+            Registration entity = RegistrationMapper.toEntity(registrationDTO);
 
-        entity = registrationService.save(entity); // serviço dentro do método save
+            entity = registrationService.save(entity); // serviço dentro do método save
 
-        return modelMapper.map(entity, RegistrationDTO.class);
+            return RegistrationMapper.toDTO(entity);
+        });
 
     }
 
-    @GetMapping("{id}")
+    // aceita um array JSON ou NDJSON (um registro por linha) e lê o corpo em streaming, salvando em lotes
+    @PostMapping(value = "batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @RateLimited("registration-batch")
     @ResponseStatus(HttpStatus.OK)
-    public RegistrationDTO get (@PathVariable Integer id) {
+    public List<RegistrationBatchResultDTO> createBatch(InputStream body) throws IOException {
+
+        List<RegistrationBatchResultDTO> results = new ArrayList<>();
+        List<Registration> chunk = new ArrayList<>(batchSize);
+        List<Integer> chunkIndexes = new ArrayList<>(batchSize);
+        int index = 0;
+
+        try (MappingIterator<RegistrationDTO> rows = objectMapper.readerFor(RegistrationDTO.class).readValues(body)) {
+            while (rows.hasNextValue()) {
+                RegistrationDTO dto = rows.nextValue();
+
+                List<String> errors = validator.validate(dto).stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.toList());
+                Registration entity = null;
+                if (errors.isEmpty()) {
+                    // o formato passou no @Pattern, mas a data ainda pode não existir (31/02)
+                    try {
+                        entity = RegistrationMapper.toEntity(dto);
+                    } catch (BusinessException e) {
+                        errors = List.of(e.getMessage());
+                    }
+                }
+                if (!errors.isEmpty()) {
+                    results.add(invalid(index, dto.getRegistration(), errors));
+                } else {
+                    entity.setId(null);
+                    chunk.add(entity);
+                    chunkIndexes.add(index);
+                }
+                index++;
+
+                if (chunk.size() == batchSize) {
+                    saveChunk(chunk, chunkIndexes, results);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // o restante do corpo não pode ser lido, as linhas anteriores continuam válidas
+            results.add(invalid(index, null, List.of(e.getOriginalMessage())));
+        }
+
+        saveChunk(chunk, chunkIndexes, results);
+        results.sort(Comparator.comparing(RegistrationBatchResultDTO::getIndex));
+        return results;
+    }
+
+    private void saveChunk(List<Registration> chunk, List<Integer> chunkIndexes, List<RegistrationBatchResultDTO> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<RegistrationBatchResultDTO> saved;
+        try {
+            saved = registrationService.saveAll(chunk);
+        } catch (BusinessException e) {
+            // o lote colidiu com inserts concorrentes: refaz linha a linha para saber quais entraram
+            saved = chunk.stream().map(this::saveSingle).collect(Collectors.toList());
+        }
+        for (int i = 0; i < saved.size(); i++) {
+            RegistrationBatchResultDTO result = saved.get(i);
+            result.setIndex(chunkIndexes.get(i));
+            results.add(result);
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private RegistrationBatchResultDTO saveSingle(Registration registration) {
+        registration.setId(null); // descarta o id e a versão atribuídos pela tentativa em lote que falhou
+        registration.setVersion(null);
+        RegistrationBatchResultDTO result = RegistrationBatchResultDTO.builder()
+                .registration(registration.getRegistration())
+                .build();
+        try {
+            result.setId(registrationService.save(registration).getId());
+            result.setStatus(RegistrationBatchResultDTO.Status.CREATED);
+        } catch (BusinessException e) {
+            result.setStatus(RegistrationBatchResultDTO.Status.DUPLICATED);
+            result.setErrors(List.of(e.getMessage()));
+        }
+        return result;
+    }
+
+    private RegistrationBatchResultDTO invalid(int index, String registration, List<String> errors) {
+        return RegistrationBatchResultDTO.builder()
+                .index(index)
+                .registration(registration)
+                .status(RegistrationBatchResultDTO.Status.INVALID)
+                .errors(errors)
+                .build();
+    }
 
-        return registrationService
+    // muitos ids e/ou registrations numa chamada: o que está em cache não vai ao banco, o resto vai em IN por lotes
+    @PostMapping("lookup")
+    @RateLimited("registration-lookup")
+    public RegistrationLookupResultDTO lookup(@RequestBody @Valid RegistrationLookupDTO dto) {
+        Map<Integer, RegistrationDTO> ids = new LinkedHashMap<>();
+        if (dto.getIds() != null && !dto.getIds().isEmpty()) {
+            Map<Integer, Registration> found = registrationService.getRegistrationsByIds(dto.getIds());
+            dto.getIds().stream()
+                    .filter(found::containsKey)
+                    .forEach(id -> ids.putIfAbsent(id, RegistrationMapper.toDTO(found.get(id))));
+        }
+        Map<String, RegistrationDTO> registrations = new LinkedHashMap<>();
+        if (dto.getRegistrations() != null && !dto.getRegistrations().isEmpty()) {
+            Map<String, Registration> found = registrationService.getRegistrationsByRegistrationAtrs(dto.getRegistrations());
+            dto.getRegistrations().stream()
+                    .filter(found::containsKey)
+                    .forEach(code -> registrations.putIfAbsent(code, RegistrationMapper.toDTO(found.get(code))));
+        }
+        return RegistrationLookupResultDTO.builder().ids(ids).registrations(registrations).build();
+    }
+
+    @GetMapping("{id}")
+    public ResponseEntity<RegistrationDTO> get (@PathVariable Integer id, WebRequest request) {
+
+        Registration registration = registrationService
                 .getRegistrationByID(id) // busca por id
-                .map(registration -> modelMapper.map(registration, RegistrationDTO.class)) // mapear entidade/dados de transferência com lambda functions
                 .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND)); // caso não encontre os dados, dá o NOT FOUND
 
+        // If-None-Match com a versão atual: 304 sem mapear nem serializar o corpo
+        String etag = HttpCachePolicy.etag(registration.getVersion());
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        return withETag(registration);
+
+    }
+
+    private ResponseEntity<RegistrationDTO> withETag(Registration registration) {
+        String etag = HttpCachePolicy.etag(registration.getVersion());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(cachePolicy.item());
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(RegistrationMapper.toDTO(registration));
+    }
+
+    // quantos meetups o registration tem, lido do contador em memória
+    @GetMapping("{id}/attendance")
+    public AttendanceDTO getAttendance(@PathVariable Integer id) {
+        return AttendanceDTO.builder().registrationId(id).count(registrationService.countMeetups(id)).build();
     }
 
     @DeleteMapping("{id}")
@@ -60,31 +257,79 @@ public class RegistrationController {
         registrationService.delete(registration);
     }
 
+    // sem If-Match a última escrita vence; com If-Match de uma versão antiga, 409
     @PutMapping("{id}")
-    public RegistrationDTO update(@PathVariable Integer id, RegistrationDTO registrationDTO) {
+    public ResponseEntity<RegistrationDTO> update(@PathVariable Integer id,
+                                                  @RequestBody RegistrationDTO registrationDTO,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
+        if (!registrationService.update(id, HttpCachePolicy.version(ifMatch),
+                registrationDTO.getName(), DateMapper.parse(registrationDTO.getDateOfRegistration()))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        // o cache foi invalidado pelo update, então a leitura traz a versão nova
         return registrationService.getRegistrationByID(id)
-                .map(registration -> {
-                    registration.setName(registrationDTO.getName());
-                    registration.setDateOfRegistration(registrationDTO.getDateOfRegistration());
-                    registration = registrationService.update(registration);
+                .map(this::withETag)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
-                    return modelMapper.map(registration, RegistrationDTO.class);
-                }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    // só as colunas enviadas, num único UPDATE e sem ler o registro antes
+    @PatchMapping("{id}")
+    public ResponseEntity<Void> patch(@PathVariable Integer id,
+                                      @RequestBody RegistrationDTO registrationDTO,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+        Integer expectedVersion = HttpCachePolicy.version(ifMatch);
+        if (!registrationService.patch(id, expectedVersion,
+                registrationDTO.getName(), DateMapper.parse(registrationDTO.getDateOfRegistration()))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent();
+        if (expectedVersion != null) {
+            response.eTag(HttpCachePolicy.etag(expectedVersion + 1));
+        }
+        return response.build();
 
     }
 
     @GetMapping
-    public Page<RegistrationDTO> find(RegistrationDTO dto, Pageable pageRequest) {
-        Registration filter = modelMapper.map(dto, Registration.class);
-        Page<Registration> result = registrationService.find(filter, (PageRequest) pageRequest);
+    public Object find(RegistrationDTO dto, Pageable pageRequest) {
+        Registration filter = RegistrationMapper.toEntity(dto);
+        return requestExecutor.supply(() -> {
+            Page<Registration> result = registrationService.find(filter, (PageRequest) pageRequest);
+
+            List<RegistrationDTO> list = RegistrationMapper.toDTOs(result.getContent());
+
+            return ResponseEntity.ok()
+                    .cacheControl(cachePolicy.list())
+                    .body(new PageImpl<RegistrationDTO>(list, pageRequest, result.getTotalElements()));
+        });
+    }
+
+    // todos os registrations, escritos direto do cursor do banco na resposta
+    @GetMapping("export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportResponse.start(format, "registrations", response);
+        exportService.exportRegistrations(exportFormat, response.getOutputStream());
+    }
+
+    // paginação por cursor: ?after=<token>&size=20 (after vazio começa do início), com os mesmos filtros do find
+    @GetMapping(params = "after")
+    public CursorPageDTO<RegistrationDTO> findAfter(RegistrationDTO dto,
+                                                    @RequestParam String after,
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    @RequestParam(defaultValue = "false") boolean count) {
+        Registration filter = RegistrationMapper.toEntity(dto);
+        Slice<Registration> result = registrationService.findAfter(filter, CursorToken.decode(after), CursorToken.size(size));
 
-        List<RegistrationDTO> list = result.getContent()
-                .stream()
-                .map(entity -> modelMapper.map(entity, RegistrationDTO.class))
-                .collect(Collectors.toList());
+        List<RegistrationDTO> list = RegistrationMapper.toDTOs(result.getContent());
 
-        return new PageImpl<RegistrationDTO>(list, pageRequest, result.getTotalElements());
+        return CursorPageDTO.<RegistrationDTO>builder()
+                .content(list)
+                .next(result.hasNext() ? CursorToken.encode(list.get(list.size() - 1).getId()) : null)
+                .totalElements(count ? registrationService.count(filter) : null)
+                .build();
     }
 
 }
@@ -0,0 +1,8 @@
+package com.bibs.meetups.exception;
+
+// a versão esperada não é mais a do banco: outra requisição alterou o recurso antes
+public class ConflictException extends BusinessException {
+    public ConflictException(String s) {
+        super(s);
+    }
+}
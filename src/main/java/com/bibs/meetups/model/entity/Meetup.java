@@ -2,32 +2,52 @@ package com.bibs.meetups.model.entity;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
+import java.time.LocalDate;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(name = "meetup", indexes = {
+        @Index(name = Meetup.UNIQUE_REGISTRATION_EVENT_INDEX, columnList = "id_registration, event", unique = true),
+        @Index(name = "ix_meetup_event", columnList = "event"),
+        @Index(name = "ix_meetup_date", columnList = "meetup_date")
+})
 public class Meetup {
 
+    public static final String UNIQUE_REGISTRATION_EVENT_INDEX = "ux_meetup_registration_event";
+
+    public static final String REGISTRATION_FOREIGN_KEY = "fk_meetup_registration";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // sequence com pool em vez de IDENTITY para o Hibernate conseguir agrupar os inserts em lote
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "meetup_seq")
+    @SequenceGenerator(name = "meetup_seq", sequenceName = "meetup_seq", allocationSize = 50)
     private Integer id;
 
     @Column
     private String event;
 
     @JoinColumn(name = "id_registration")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // carregado por fetch join/entity graph nas consultas que precisam dele
     // mtos meetups para 1 registro - registro só pode ir em um meetup
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Registration registration;
 
-    @Column
-    private String meetupDate;
+    @Column(name = "meetup_date")
+    private LocalDate meetupDate;
 
     @Column
     private Boolean registered;
+
+    // muda a cada update; junto com a versão do registration vira o ETag das leituras
+    @Version
+    private Integer version;
 }
@@ -0,0 +1,32 @@
+package com.bibs.meetups.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// lotação de um evento; a linha nasce no primeiro setCapacity, e capacity nula quer dizer sem limite de vagas
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "meetup_capacity")
+public class MeetupCapacity {
+
+    @Id
+    @Column(name = "event")
+    private String event;
+
+    @Column
+    private Integer capacity;
+
+    // vagas já ocupadas; só muda por update condicional, nunca por leitura + escrita
+    @Column(nullable = false)
+    private Integer reserved;
+}
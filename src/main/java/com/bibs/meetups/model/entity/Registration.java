@@ -6,29 +6,48 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.Column;
+import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDate;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Entity
+@Table(name = "registration", indexes = {
+        @Index(name = Registration.UNIQUE_REGISTRATION_INDEX, columnList = "registration", unique = true),
+        @Index(name = "ix_registration_name", columnList = "registration_name"),
+        @Index(name = "ix_registration_date", columnList = "date_of_registration")
+})
 public class Registration {
 
+    public static final String UNIQUE_REGISTRATION_INDEX = "ux_registration_registration";
+
     @Id // persistência de um elemento único da tabela
-    @Column(name = " registration_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "registration_id")
+    // sequence com pool em vez de IDENTITY para o Hibernate conseguir agrupar os inserts em lote
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "registration_seq")
+    @SequenceGenerator(name = "registration_seq", sequenceName = "registration_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "registration_name")
     private String name;
 
     @Column(name = "date_of_registration")
-    private String dateOfRegistration;
+    private LocalDate dateOfRegistration;
 
-    @Column
+    @Column(nullable = false)
     private String registration;
 
+    // muda a cada update; vira o ETag das leituras
+    @Version
+    private Integer version;
+
 }
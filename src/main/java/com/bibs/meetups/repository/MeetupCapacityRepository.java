@@ -0,0 +1,34 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.model.entity.MeetupCapacity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface MeetupCapacityRepository extends JpaRepository<MeetupCapacity, String>, MeetupCapacityRepositoryCustom {
+
+    // reserva só se couber; 0 linhas quer dizer evento lotado
+    @Transactional
+    @Modifying
+    @Query("update MeetupCapacity c set c.reserved = c.reserved + :seats " +
+            "where c.event = :event and c.reserved + :seats <= c.capacity")
+    int reserve(@Param("event") String event, @Param("seats") int seats);
+
+    @Transactional
+    @Modifying
+    @Query("update MeetupCapacity c set c.reserved = c.reserved - :seats " +
+            "where c.event = :event and c.reserved >= :seats")
+    int release(@Param("event") String event, @Param("seats") int seats);
+
+    // o evento sem limite não mantém reserved, então a primeira lotação conta as inscrições na tabela de meetups
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(nativeQuery = true, value = "update meetup_capacity " +
+            "set reserved = case when capacity is null then (select count(*) from meetup m where m.event = :event) else reserved end, " +
+            "capacity = :capacity " +
+            "where event = :event " +
+            "and case when capacity is null then (select count(*) from meetup m where m.event = :event) else reserved end <= :capacity")
+    int updateCapacity(@Param("event") String event, @Param("capacity") int capacity);
+}
@@ -0,0 +1,8 @@
+package com.bibs.meetups.repository;
+
+public interface MeetupCapacityRepositoryCustom {
+
+    // cria a linha sem limite (capacity nula, reserved 0) do evento que ainda não tem uma; se outra transação a
+    // criou junto, espera por ela e segue sem erro. Precisa de uma transação aberta
+    void createIfAbsent(String event);
+}
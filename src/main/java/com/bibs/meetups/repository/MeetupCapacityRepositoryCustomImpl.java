@@ -0,0 +1,42 @@
+package com.bibs.meetups.repository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+public class MeetupCapacityRepositoryCustomImpl implements MeetupCapacityRepositoryCustom {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void createIfAbsent(String event) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement exists = connection.prepareStatement(
+                    "select 1 from meetup_capacity where event = ?")) {
+                exists.setString(1, event);
+                if (exists.executeQuery().next()) {
+                    return;
+                }
+            }
+            // quem cria junto espera o outro insert terminar. No PostgreSQL a chave duplicada abortaria a transação
+            // de fora, então o conflito é ignorado no próprio insert; o H2 só desfaz o comando que falhou
+            boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into meetup_capacity (event, capacity, reserved) values (?, null, 0)"
+                            + (postgres ? " on conflict (event) do nothing" : ""))) {
+                insert.setString(1, event);
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+            }
+        });
+    }
+}
@@ -4,19 +4,22 @@ import com.bibs.meetups.model.entity.Meetup;
 import com.bibs.meetups.model.entity.Registration;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 
-public interface MeetupRepository extends JpaRepository<Meetup, Integer> {
+import java.util.Optional;
 
-    @Query( value = " select l from Meetup as l join l.registration as b where b.registration = :registration or l.event =:event ")
-    Page<Meetup> findByRegistrationOnMeetup(
-            @Param("registration") String registration,
-            @Param("event") String event,
-            Pageable pageable
-    );
+public interface MeetupRepository extends JpaRepository<Meetup, Integer>, MeetupRepositoryCustom {
 
+    @Override
+    @EntityGraph(attributePaths = "registration")
+    Optional<Meetup> findById(Integer id);
+
+    @EntityGraph(attributePaths = "registration")
     Page<Meetup> findByRegistration(Registration registration, Pageable pageable );
 
+    long countByEvent(String event);
+
+    long countByRegistrationId(Integer registrationId);
+
 }
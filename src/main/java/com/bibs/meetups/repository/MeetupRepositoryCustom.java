@@ -0,0 +1,25 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.model.entity.Meetup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDate;
+
+public interface MeetupRepositoryCustom {
+
+    // só os filtros informados entram no where; com registration e event, vale um OU o outro,
+    // e o intervalo de datas (from/to, inclusivos) restringe o resultado
+    Page<Meetup> findByFilter(Integer registrationId, String event, LocalDate from, LocalDate to, Pageable pageable);
+
+    Page<MeetupDTO> findSummariesByFilter(Integer registrationId, String event, LocalDate from, LocalDate to,
+                                          Pageable pageable);
+
+    // cursor: os mesmos filtros do findByFilter mais id > afterId, em ordem de id e sem COUNT
+    Slice<Meetup> findAfterByFilter(int afterId, Integer registrationId, String event, LocalDate from, LocalDate to,
+                                    int size);
+
+    long countByFilter(Integer registrationId, String event, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,149 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.model.entity.Meetup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MeetupRepositoryCustomImpl implements MeetupRepositoryCustom {
+
+    private static final String ALIAS = "l";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Meetup> findByFilter(Integer registrationId, String event, LocalDate from, LocalDate to,
+                                     Pageable pageable) {
+        Filter filter = new Filter(registrationId, event, from, to, null);
+        TypedQuery<Meetup> query = entityManager.createQuery(
+                sorted(" select l from Meetup as l left join fetch l.registration as b " + filter.where(), pageable), Meetup.class);
+        return page(query, filter, pageable);
+    }
+
+    @Override
+    public Page<MeetupDTO> findSummariesByFilter(Integer registrationId, String event, LocalDate from, LocalDate to,
+                                                 Pageable pageable) {
+        Filter filter = new Filter(registrationId, event, from, to, null);
+        TypedQuery<MeetupDTO> query = entityManager.createQuery(
+                sorted(" select new com.bibs.meetups.controller.dto.MeetupDTO(l.id, l.event, l.meetupDate, b.id, b.name, b.dateOfRegistration, b.registration) " +
+                        " from Meetup as l left join l.registration as b " + filter.where(), pageable), MeetupDTO.class);
+        return page(query, filter, pageable);
+    }
+
+    @Override
+    public Slice<Meetup> findAfterByFilter(int afterId, Integer registrationId, String event, LocalDate from,
+                                           LocalDate to, int size) {
+        Filter filter = new Filter(registrationId, event, from, to, afterId);
+        TypedQuery<Meetup> query = entityManager.createQuery(
+                " select l from Meetup as l left join fetch l.registration as b " + filter.where() + " order by l.id ",
+                Meetup.class);
+        filter.bind(query);
+        // uma linha a mais só para saber se existe a próxima página, sem COUNT
+        query.setMaxResults(size + 1);
+        List<Meetup> content = query.getResultList();
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    public long countByFilter(Integer registrationId, String event, LocalDate from, LocalDate to) {
+        return count(new Filter(registrationId, event, from, to, null));
+    }
+
+    private long count(Filter filter) {
+        TypedQuery<Long> count = entityManager.createQuery(" select count(l) from Meetup as l " + filter.where(), Long.class);
+        filter.bind(count);
+        return count.getSingleResult();
+    }
+
+    private String sorted(String jpql, Pageable pageable) {
+        return pageable.getSort().isSorted() ? QueryUtils.applySorting(jpql, pageable.getSort(), ALIAS) : jpql;
+    }
+
+    private <T> Page<T> page(TypedQuery<T> query, Filter filter, Pageable pageable) {
+        filter.bind(query);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<T> content = query.getResultList();
+
+        // o count só roda quando não dá para deduzir o total pela própria página
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(filter));
+    }
+
+    private static final class Filter {
+
+        private final Integer registrationId;
+
+        private final String event;
+
+        private final LocalDate from;
+
+        private final LocalDate to;
+
+        private final Integer afterId;
+
+        private Filter(Integer registrationId, String event, LocalDate from, LocalDate to, Integer afterId) {
+            this.registrationId = registrationId;
+            this.event = event;
+            this.from = from;
+            this.to = to;
+            this.afterId = afterId;
+        }
+
+        // filtra pela FK (l.registration.id) e não pela coluna do registration, então cada lado usa o próprio índice;
+        // as datas viram comparação direta na coluna DATE, que o ix_meetup_date resolve por range scan
+        private String where() {
+            List<String> conditions = new ArrayList<>(4);
+            if (registrationId != null && event != null) {
+                conditions.add("(l.registration.id = :registrationId or l.event = :event)");
+            } else if (registrationId != null) {
+                conditions.add("l.registration.id = :registrationId");
+            } else if (event != null) {
+                conditions.add("l.event = :event");
+            }
+            if (from != null) {
+                conditions.add("l.meetupDate >= :from");
+            }
+            if (to != null) {
+                conditions.add("l.meetupDate <= :to");
+            }
+            if (afterId != null) {
+                conditions.add("l.id > :afterId");
+            }
+            return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions) + " ";
+        }
+
+        private void bind(TypedQuery<?> query) {
+            if (registrationId != null) {
+                query.setParameter("registrationId", registrationId);
+            }
+            if (event != null) {
+                query.setParameter("event", event);
+            }
+            if (from != null) {
+                query.setParameter("from", from);
+            }
+            if (to != null) {
+                query.setParameter("to", to);
+            }
+            if (afterId != null) {
+                query.setParameter("afterId", afterId);
+            }
+        }
+    }
+}
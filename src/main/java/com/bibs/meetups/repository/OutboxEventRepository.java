@@ -0,0 +1,21 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.model.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // lock timeout -2 é o SKIP LOCKED do Hibernate: cada instância pega um lote diferente em vez de esperar
+    // (no H2, que não tem SKIP LOCKED, vira um FOR UPDATE comum)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    List<OutboxEvent> findByNextAttemptAtLessThanEqualOrderById(Instant now, Pageable pageable);
+}
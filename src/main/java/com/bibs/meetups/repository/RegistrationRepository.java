@@ -1,13 +1,47 @@
 package com.bibs.meetups.repository;
 
 import com.bibs.meetups.model.entity.Registration;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-public interface RegistrationRepository extends JpaRepository<Registration, Integer> {
+public interface RegistrationRepository extends JpaRepository<Registration, Integer>, RegistrationRepositoryCustom {
 
     boolean existsByRegistration(String registration);
 
     Optional<Registration> findByRegistration(String registrationAtr);
+
+    Slice<Registration> findByIdGreaterThan(Integer id, Pageable pageable);
+
+    List<Registration> findByRegistrationIn(Collection<String> registrations);
+
+    @Query(" select r.registration from Registration as r where r.registration in :registrations ")
+    Set<String> findExistingRegistrations(@Param("registrations") Collection<String> registrations);
+
+    // um único UPDATE, sem SELECT antes; version nula não confere a versão. 0 linhas: id inexistente ou versão velha
+    @Transactional
+    @Modifying
+    @Query("update Registration r set r.name = :name, r.dateOfRegistration = :dateOfRegistration, " +
+            "r.version = r.version + 1 where r.id = :id and (:version is null or r.version = :version)")
+    int updateIfMatch(@Param("id") Integer id, @Param("version") Integer version,
+                      @Param("name") String name, @Param("dateOfRegistration") LocalDate dateOfRegistration);
+
+    // como o updateIfMatch, mas só troca as colunas que vieram preenchidas
+    @Transactional
+    @Modifying
+    @Query("update Registration r set r.name = coalesce(:name, r.name), " +
+            "r.dateOfRegistration = coalesce(:dateOfRegistration, r.dateOfRegistration), " +
+            "r.version = r.version + 1 where r.id = :id and (:version is null or r.version = :version)")
+    int patchIfMatch(@Param("id") Integer id, @Param("version") Integer version,
+                     @Param("name") String name, @Param("dateOfRegistration") LocalDate dateOfRegistration);
 }
@@ -0,0 +1,13 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.model.entity.Registration;
+import org.springframework.data.domain.Slice;
+
+public interface RegistrationRepositoryCustom {
+
+    // cursor com o mesmo casamento do find por Example: name e registration por trecho, sem caixa, e
+    // dateOfRegistration igual; campos nulos ficam fora do where
+    Slice<Registration> findAfterByFilter(int afterId, Registration filter, int size);
+
+    long countByFilter(Registration filter);
+}
@@ -0,0 +1,103 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.model.entity.Registration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class RegistrationRepositoryCustomImpl implements RegistrationRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Registration> findAfterByFilter(int afterId, Registration filter, int size) {
+        Filter where = new Filter(filter, afterId);
+        TypedQuery<Registration> query = entityManager.createQuery(
+                " select r from Registration as r " + where.where() + " order by r.id ", Registration.class);
+        where.bind(query);
+        // uma linha a mais só para saber se existe a próxima página, sem COUNT
+        query.setMaxResults(size + 1);
+        List<Registration> content = query.getResultList();
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    public long countByFilter(Registration filter) {
+        Filter where = new Filter(filter, null);
+        TypedQuery<Long> count = entityManager.createQuery(
+                " select count(r) from Registration as r " + where.where(), Long.class);
+        where.bind(count);
+        return count.getSingleResult();
+    }
+
+    private static final class Filter {
+
+        private final String name;
+
+        private final String registration;
+
+        private final LocalDate dateOfRegistration;
+
+        private final Integer afterId;
+
+        private Filter(Registration filter, Integer afterId) {
+            this.name = filter != null ? containing(filter.getName()) : null;
+            this.registration = filter != null ? containing(filter.getRegistration()) : null;
+            this.dateOfRegistration = filter != null ? filter.getDateOfRegistration() : null;
+            this.afterId = afterId;
+        }
+
+        private static String containing(String value) {
+            if (value == null) {
+                return null;
+            }
+            String escaped = value.toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\")
+                    .replace("%", "\\%")
+                    .replace("_", "\\_");
+            return "%" + escaped + "%";
+        }
+
+        private String where() {
+            List<String> conditions = new ArrayList<>(4);
+            if (name != null) {
+                conditions.add("lower(r.name) like :name escape '\\'");
+            }
+            if (registration != null) {
+                conditions.add("lower(r.registration) like :registration escape '\\'");
+            }
+            if (dateOfRegistration != null) {
+                conditions.add("r.dateOfRegistration = :dateOfRegistration");
+            }
+            if (afterId != null) {
+                conditions.add("r.id > :afterId");
+            }
+            return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions) + " ";
+        }
+
+        private void bind(TypedQuery<?> query) {
+            if (name != null) {
+                query.setParameter("name", name);
+            }
+            if (registration != null) {
+                query.setParameter("registration", registration);
+            }
+            if (dateOfRegistration != null) {
+                query.setParameter("dateOfRegistration", dateOfRegistration);
+            }
+            if (afterId != null) {
+                query.setParameter("afterId", afterId);
+            }
+        }
+    }
+}
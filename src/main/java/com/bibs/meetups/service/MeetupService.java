@@ -1,22 +1,43 @@
 package com.bibs.meetups.service;
 
+import com.bibs.meetups.controller.dto.MeetupDTO;
 import com.bibs.meetups.controller.dto.MeetupFilterDTO;
 import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.MeetupCapacity;
 import com.bibs.meetups.model.entity.Registration;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
 import java.util.Optional;
 public interface MeetupService {
 
     Meetup save(Meetup meetup);
 
+    List<Meetup> saveAll(List<Meetup> meetups);
+
     Optional<Meetup> getById(Integer id);
 
     Meetup update(Meetup loan);
 
     Page<Meetup> find(MeetupFilterDTO filterDTO, Pageable pageable);
 
+    Page<MeetupDTO> findSummaries(MeetupFilterDTO filterDTO, Pageable pageable);
+
     Page<Meetup> getRegistrationsByMeetup(Registration registration, Pageable pageable);
 
+    // cursor por id com os mesmos filtros do find
+    Slice<Meetup> findAfter(MeetupFilterDTO filterDTO, Integer lastId, int size);
+
+    long count();
+
+    long count(MeetupFilterDTO filterDTO);
+
+    MeetupCapacity setCapacity(String event, int capacity);
+
+    Optional<MeetupCapacity> getCapacity(String event);
+
+    long countRegistrations(String event);
+
 }
@@ -1,22 +1,50 @@
 package com.bibs.meetups.service;
 
+import com.bibs.meetups.controller.dto.RegistrationBatchResultDTO;
 import com.bibs.meetups.model.entity.Registration;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface RegistrationService {
 
     Registration save(Registration any);
 
+    List<RegistrationBatchResultDTO> saveAll(List<Registration> registrations);
+
     Optional<Registration> getRegistrationByID(Integer id);
 
     void delete(Registration registration);
 
     Registration update(Registration registration);
 
+    // update condicional pela versão (null aceita qualquer uma): false se o id não existe, ConflictException se a versão mudou
+    boolean update(Integer id, Integer expectedVersion, String name, LocalDate dateOfRegistration);
+
+    // como o update, mas campos nulos mantêm o valor atual
+    boolean patch(Integer id, Integer expectedVersion, String name, LocalDate dateOfRegistration);
+
     Page<Registration> find(Registration filter, PageRequest pageRequest);
 
+    // cursor por id; name, registration e dateOfRegistration do filtro restringem como no find
+    Slice<Registration> findAfter(Registration filter, Integer lastId, int size);
+
+    long count();
+
+    long count(Registration filter);
+
     Optional<Registration> getRegistrationByRegistrationAtr(String registrationAttribute);
+
+    // vários de uma vez; os que não existem ficam fora do mapa
+    Map<Integer, Registration> getRegistrationsByIds(Collection<Integer> ids);
+
+    Map<String, Registration> getRegistrationsByRegistrationAtrs(Collection<String> registrationAttributes);
+
+    long countMeetups(Integer registrationId);
 }
@@ -0,0 +1,295 @@
+package com.bibs.meetups.service.attendance;
+
+import com.bibs.meetups.config.replica.ReplicaRouting;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.repository.MeetupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// inscrições por evento e meetups por registration, mantidos em memória a cada commit: o dashboard lê um
+// contador em vez de contar linhas. Enquanto a primeira reconstrução não termina, a contagem vem do banco.
+@Slf4j
+@Component
+public class AttendanceCounters {
+
+    private static final String ROWS = "select l.id, l.event, l.registration.id from Meetup l";
+
+    private static final String ROWS_BY_ID = "select l.id, l.event, l.registration.id from Meetup l where l.id in :ids";
+
+    private static final int IDS_PER_QUERY = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final MeetupRepository repository;
+
+    private final TransactionTemplate snapshot;
+
+    private final int fetchSize;
+
+    private volatile State state = new State(new Counts(), new RoaringBitmap(), List.of(new Counts()), null);
+
+    // avisos pegam a leitura; a reconstrução pega a escrita só para fechar o diário e trocar o estado
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    public AttendanceCounters(MeetupRepository repository, PlatformTransactionManager transactionManager,
+                              @Value("${meetups.attendance.fetch-size:1000}") int fetchSize) {
+        this.repository = repository;
+        // uma única leitura consistente da tabela, sem travar as inscrições que chegam durante a contagem
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.fetchSize = fetchSize;
+    }
+
+    public void registered(Collection<Meetup> meetups) {
+        lock.readLock().lock();
+        try {
+            State current = state;
+            meetups.forEach(meetup -> current.apply(
+                    new Change(meetup.getId(), true, null, null, meetup.getEvent(), registrationId(meetup))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // um update pode trocar o evento ou o registration de uma inscrição
+    public void moved(Integer meetupId, String fromEvent, Integer fromRegistrationId, String toEvent, Integer toRegistrationId) {
+        lock.readLock().lock();
+        try {
+            state.apply(new Change(meetupId, false, fromEvent, fromRegistrationId, toEvent, toRegistrationId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // a FK não deixa apagar um registration com meetups, então só sobra descartar a entrada dele
+    public void registrationDeleted(Integer registrationId) {
+        State current = state;
+        current.base.byRegistration.remove(registrationId);
+        current.deltas.forEach(counts -> counts.byRegistration.remove(registrationId));
+    }
+
+    public long registrations(String event) {
+        if (!ready) {
+            return repository.countByEvent(event);
+        }
+        State current = state;
+        long count = current.base.event(event);
+        for (Counts delta : current.deltas) {
+            count += delta.event(event);
+        }
+        return count;
+    }
+
+    public long meetups(Integer registrationId) {
+        if (!ready) {
+            return repository.countByRegistrationId(registrationId);
+        }
+        State current = state;
+        long count = current.base.registration(registrationId);
+        for (Counts delta : current.deltas) {
+            count += delta.registration(registrationId);
+        }
+        return count;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // recontagem completa numa passada pelo cursor. O delta novo entra antes de a consulta abrir a foto: o que
+    // chega antes vai para o delta velho, descartado com a base antiga, e o que chega depois soma em cima da foto.
+    // Um commit que entrou na foto mas só avisou depois de o delta novo entrar sai dele pelo diário, conferido
+    // na mesma foto; o fim do diário é conferido com os avisos parados, e a inscrição que avisar depois da troca
+    // é reconhecida pelo id na foto
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${meetups.attendance.reconcile-cron:0 30 4 * * *}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Counts fresh = new Counts();
+        RoaringBitmap counted = new RoaringBitmap();
+        Counts latest = new Counts();
+        List<Change> journal = Collections.synchronizedList(new ArrayList<>());
+        lock.writeLock().lock();
+        try {
+            State current = state;
+            state = new State(current.base, current.counted, List.of(current.latest(), latest), journal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // a foto vem do primário: os deltas são dos commits de lá, e uma réplica atrasada perderia os do meio
+        ReplicaRouting.onPrimary(() -> snapshot.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = entityManager.createQuery(ROWS, Object[].class)
+                    .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(QueryHints.HINT_READONLY, true)
+                    .getResultStream()) {
+                rows.forEach(row -> {
+                    counted.add((Integer) row[0]);
+                    fresh.add((String) row[1], (Integer) row[2], 1);
+                });
+            }
+            discardCounted(drain(journal), latest);
+            lock.writeLock().lock();
+            try {
+                discardCounted(drain(journal), latest);
+                state = new State(fresh, counted, List.of(latest), null);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }));
+        ready = true;
+        log.info("Attendance counters rebuilt for {} events and {} registrations in {} ms",
+                fresh.byEvent.size(), fresh.byRegistration.size(), System.currentTimeMillis() - start);
+    }
+
+    private static List<Change> drain(List<Change> journal) {
+        synchronized (journal) {
+            List<Change> changes = new ArrayList<>(journal);
+            journal.clear();
+            return changes;
+        }
+    }
+
+    // desfaz no delta as mudanças que a foto já mostra: a inscrição nova já existe nela, a troca já está no destino
+    private void discardCounted(List<Change> changes, Counts latest) {
+        Map<Integer, Object[]> rows = new HashMap<>();
+        List<Integer> ids = changes.stream().map(change -> change.meetupId).filter(Objects::nonNull).distinct()
+                .collect(Collectors.toList());
+        for (int from = 0; from < ids.size(); from += IDS_PER_QUERY) {
+            entityManager.createQuery(ROWS_BY_ID, Object[].class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + IDS_PER_QUERY, ids.size())))
+                    .setHint(QueryHints.HINT_READONLY, true)
+                    .getResultList()
+                    .forEach(row -> rows.put((Integer) row[0], row));
+        }
+        for (Change change : changes) {
+            Object[] row = rows.get(change.meetupId);
+            if (row != null && (change.inserted
+                    || Objects.equals(row[1], change.toEvent) && Objects.equals(row[2], change.toRegistrationId))) {
+                latest.add(change.toEvent, change.toRegistrationId, -1);
+                latest.add(change.fromEvent, change.fromRegistrationId, 1);
+            }
+        }
+    }
+
+    private static Integer registrationId(Meetup meetup) {
+        return meetup.getRegistration() != null ? meetup.getRegistration().getId() : null;
+    }
+
+    // a contagem lida é a base da última reconstrução mais os deltas desde então; só o último delta recebe escrita
+    private static final class State {
+
+        private final Counts base;
+
+        // ids das inscrições contadas na base
+        private final RoaringBitmap counted;
+
+        private final List<Counts> deltas;
+
+        // só existe durante a reconstrução, e só recebe o que vai para o delta novo
+        private final List<Change> journal;
+
+        private State(Counts base, RoaringBitmap counted, List<Counts> deltas, List<Change> journal) {
+            this.base = base;
+            this.counted = counted;
+            this.deltas = deltas;
+            this.journal = journal;
+        }
+
+        private Counts latest() {
+            return deltas.get(deltas.size() - 1);
+        }
+
+        private void apply(Change change) {
+            if (change.inserted && change.meetupId != null && counted.contains(change.meetupId)) {
+                return;
+            }
+            Counts counts = latest();
+            counts.add(change.fromEvent, change.fromRegistrationId, -1);
+            counts.add(change.toEvent, change.toRegistrationId, 1);
+            if (journal != null) {
+                journal.add(change);
+            }
+        }
+    }
+
+    private static final class Change {
+
+        private final Integer meetupId;
+
+        private final boolean inserted;
+
+        private final String fromEvent;
+
+        private final Integer fromRegistrationId;
+
+        private final String toEvent;
+
+        private final Integer toRegistrationId;
+
+        private Change(Integer meetupId, boolean inserted, String fromEvent, Integer fromRegistrationId,
+                       String toEvent, Integer toRegistrationId) {
+            this.meetupId = meetupId;
+            this.inserted = inserted;
+            this.fromEvent = fromEvent;
+            this.fromRegistrationId = fromRegistrationId;
+            this.toEvent = toEvent;
+            this.toRegistrationId = toRegistrationId;
+        }
+    }
+
+    private static final class Counts {
+
+        private final ConcurrentMap<String, LongAdder> byEvent = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<Integer, LongAdder> byRegistration = new ConcurrentHashMap<>();
+
+        private void add(String event, Integer registrationId, long delta) {
+            if (event != null) {
+                byEvent.computeIfAbsent(event, key -> new LongAdder()).add(delta);
+            }
+            if (registrationId != null) {
+                byRegistration.computeIfAbsent(registrationId, key -> new LongAdder()).add(delta);
+            }
+        }
+
+        private long event(String event) {
+            LongAdder count = byEvent.get(event);
+            return count != null ? count.sum() : 0;
+        }
+
+        private long registration(Integer registrationId) {
+            LongAdder count = byRegistration.get(registrationId);
+            return count != null ? count.sum() : 0;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.bibs.meetups.service.cache;
+
+import com.bibs.meetups.model.entity.Registration;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// cache limitado por tamanho e TTL das consultas de registration por id e por atributo registration.
+// Guarda a consulta em andamento, não só o resultado: leituras simultâneas da mesma chave, sozinhas ou em lote,
+// esperam a mesma ida ao banco. Quem chega primeiro carrega na própria thread (transação e métricas continuam nela)
+@Component
+public class RegistrationCache implements MeterBinder {
+
+    static final String BY_ID = "registrationsById";
+    static final String BY_REGISTRATION = "registrationIdsByRegistration";
+
+    private final AsyncCache<Integer, Registration> byId;
+
+    // guarda só o id: o atributo registration não muda depois de criado, então basta invalidar por id
+    private final AsyncCache<String, Integer> idByRegistration;
+
+    public RegistrationCache(@Value("${meetups.cache.registration.maximum-size:10000}") long maximumSize,
+                             @Value("${meetups.cache.registration.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        this.idByRegistration = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public Optional<Registration> getById(Integer id, Function<Integer, Optional<Registration>> loader) {
+        return Optional.ofNullable(load(byId, id, key -> loader.apply(key).orElse(null)));
+    }
+
+    public Optional<Integer> getIdByRegistration(String registrationAttribute,
+                                                 Function<String, Optional<Registration>> loader) {
+        return Optional.ofNullable(load(idByRegistration, registrationAttribute, key -> loader.apply(key)
+                .map(this::cacheById)
+                .orElse(null)));
+    }
+
+    // só as chaves ausentes (e que ninguém está carregando) vão para o loader, numa única chamada
+    public Map<Integer, Registration> getAllById(Collection<Integer> ids,
+                                                 Function<Set<Integer>, Map<Integer, Registration>> loader) {
+        return loadAll(byId, ids, loader);
+    }
+
+    public Map<String, Registration> getAllByRegistration(Collection<String> registrationAttributes,
+                                                          Function<Set<String>, Map<String, Registration>> loader,
+                                                          Function<Set<Integer>, Map<Integer, Registration>> byIdLoader) {
+        Map<String, Integer> ids = loadAll(idByRegistration, registrationAttributes, missing -> {
+            Map<String, Integer> loaded = new HashMap<>();
+            loader.apply(missing).forEach((registration, entity) -> loaded.put(registration, cacheById(entity)));
+            return loaded;
+        });
+        Map<Integer, Registration> registrations = getAllById(ids.values(), byIdLoader);
+        Map<String, Registration> result = new HashMap<>();
+        ids.forEach((registration, id) -> {
+            Registration entity = registrations.get(id);
+            if (entity != null) {
+                result.put(registration, entity);
+            }
+        });
+        return result;
+    }
+
+    public void evict(Registration registration) {
+        if (registration.getId() != null) {
+            byId.synchronous().invalidate(registration.getId());
+        }
+        if (registration.getRegistration() != null) {
+            idByRegistration.synchronous().invalidate(registration.getRegistration());
+        }
+    }
+
+    public CacheStats byIdStats() {
+        return byId.synchronous().stats();
+    }
+
+    public CacheStats byRegistrationStats() {
+        return idByRegistration.synchronous().stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, BY_ID);
+        CaffeineCacheMetrics.monitor(registry, idByRegistration, BY_REGISTRATION);
+    }
+
+    private Integer cacheById(Registration registration) {
+        byId.put(registration.getId(), CompletableFuture.completedFuture(registration));
+        return registration.getId();
+    }
+
+    // valor nulo (não encontrado) e falha não ficam no cache: o Caffeine descarta a entrada quando a consulta termina
+    private static <K, V> V load(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> future = cache.get(key, (k, executor) -> created);
+        if (future == created) {
+            try {
+                created.complete(loader.apply(key));
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            }
+        }
+        return join(future);
+    }
+
+    // carrega as próprias chaves antes de esperar as dos outros, então dois lotes que se cruzam não se travam
+    private static <K, V> Map<K, V> loadAll(AsyncCache<K, V> cache, Collection<K> keys,
+                                            Function<Set<K>, Map<K, V>> loader) {
+        CompletableFuture<Map<K, V>> created = new CompletableFuture<>();
+        Set<K> missing = new LinkedHashSet<>();
+        CompletableFuture<Map<K, V>> all = cache.getAll(keys, (absent, executor) -> {
+            absent.forEach(missing::add);
+            return created;
+        });
+        if (!missing.isEmpty()) {
+            try {
+                created.complete(loader.apply(missing));
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            }
+        }
+        return join(all);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bibs.meetups.service.capacity;
+
+import com.bibs.meetups.model.entity.MeetupCapacity;
+import com.bibs.meetups.repository.MeetupCapacityRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// contador de vagas livres por evento em memória: o evento sem limite não passa pelo banco, e o lotado recusa
+// sem o update com lock. O banco continua sendo quem decide a lotação (update condicional em MeetupCapacity).
+// O "sem limite" e o "lotado" valem por refresh-interval, que é o tempo para uma lotação configurada ou uma
+// vaga liberada em outra instância aparecer aqui; nesta instância o setCapacity descarta o contador na hora
+@Component
+public class SeatCounter {
+
+    public enum Reservation {
+        UNLIMITED,
+        ACQUIRED,
+        FULL
+    }
+
+    private final MeetupCapacityRepository repository;
+
+    private final long refreshNanos;
+
+    private final ConcurrentMap<String, Seats> available = new ConcurrentHashMap<>();
+
+    public SeatCounter(MeetupCapacityRepository repository,
+                       @Value("${meetups.capacity.refresh-interval:PT5S}") Duration refreshInterval) {
+        this.repository = repository;
+        this.refreshNanos = refreshInterval.toNanos();
+    }
+
+    public Reservation tryAcquire(String event, int seats) {
+        Seats current = current(event);
+        if (current.free == null) {
+            return Reservation.UNLIMITED;
+        }
+        if (take(current.free, seats)) {
+            return Reservation.ACQUIRED;
+        }
+        // lotado pelo contador: só relê a linha quando a leitura já passou do refresh-interval
+        if (!current.isStale(refreshNanos)) {
+            return Reservation.FULL;
+        }
+        current = reload(event);
+        if (current.free == null) {
+            return Reservation.UNLIMITED;
+        }
+        return take(current.free, seats) ? Reservation.ACQUIRED : Reservation.FULL;
+    }
+
+    // evento com lotação: reserva e devolução passam pela linha de MeetupCapacity
+    public boolean isLimited(String event) {
+        return current(event).free != null;
+    }
+
+    public void release(String event, int seats) {
+        Seats current = available.get(event);
+        if (current != null && current.free != null) {
+            current.free.addAndGet(seats);
+        }
+    }
+
+    // descarta o contador; a próxima tentativa relê o banco
+    public void reset(String event) {
+        available.remove(event);
+    }
+
+    public int available(String event) {
+        Seats current = current(event);
+        return current.free == null ? Integer.MAX_VALUE : current.free.get();
+    }
+
+    // o contador com vagas continua valendo (as reservas desta instância passam por ele); o "sem limite" expira
+    private Seats current(String event) {
+        Seats current = available.get(event);
+        if (current == null || current.free == null && current.isStale(refreshNanos)) {
+            return reload(event);
+        }
+        return current;
+    }
+
+    private static boolean take(AtomicInteger counter, int seats) {
+        while (true) {
+            int current = counter.get();
+            if (current < seats) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - seats)) {
+                return true;
+            }
+        }
+    }
+
+    private Seats reload(String event) {
+        Optional<MeetupCapacity> capacity = repository.findById(event)
+                .filter(row -> row.getCapacity() != null);
+        Seats seats = new Seats(capacity.map(row -> new AtomicInteger(remaining(row))).orElse(null));
+        available.put(event, seats);
+        return seats;
+    }
+
+    private static int remaining(MeetupCapacity capacity) {
+        return Math.max(0, capacity.getCapacity() - capacity.getReserved());
+    }
+
+    private static final class Seats {
+
+        // null: evento sem limite
+        private final AtomicInteger free;
+
+        private final long loadedAt = System.nanoTime();
+
+        private Seats(AtomicInteger free) {
+            this.free = free;
+        }
+
+        private boolean isStale(long refreshNanos) {
+            return System.nanoTime() - loadedAt >= refreshNanos;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bibs.meetups.service.export;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.controller.dto.RegistrationDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// exportação completa direto do cursor do banco para a resposta, linha a linha: projeções em DTO (nada fica
+// no contexto de persistência) e escrita bloqueante no socket, então um cliente lento segura a leitura do cursor
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private static final String REGISTRATIONS =
+            "select new com.bibs.meetups.controller.dto.RegistrationDTO(r.id, r.name, r.dateOfRegistration, r.registration) " +
+                    "from Registration r order by r.id";
+
+    private static final String MEETUPS =
+            "select new com.bibs.meetups.controller.dto.MeetupDTO(l.id, l.event, l.meetupDate, b.id, b.name, b.dateOfRegistration, b.registration) " +
+                    "from Meetup l left join l.registration b order by l.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final int fetchSize;
+
+    public ExportService(ObjectMapper objectMapper, @Value("${meetups.export.fetch-size:1000}") int fetchSize) {
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public void exportRegistrations(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<RegistrationDTO> rows = stream(REGISTRATIONS, RegistrationDTO.class)) {
+            if (format == ExportFormat.CSV) {
+                writeCsv(rows, out, "id,name,dateOfRegistration,registration", registration -> new Object[]{
+                        registration.getId(), registration.getName(), registration.getDateOfRegistration(),
+                        registration.getRegistration()});
+            } else {
+                writeNdjson(rows, out, RegistrationDTO.class);
+            }
+        }
+    }
+
+    public void exportMeetups(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<MeetupDTO> rows = stream(MEETUPS, MeetupDTO.class)) {
+            if (format == ExportFormat.CSV) {
+                writeCsv(rows, out, "id,event,meetupDate,registrationAttribute,registrationId,registrationName", meetup -> {
+                    RegistrationDTO registration = meetup.getRegistration();
+                    return new Object[]{meetup.getId(), meetup.getEvent(), meetup.getMeetupDate(), meetup.getRegistrationAttribute(),
+                            registration != null ? registration.getId() : null, registration != null ? registration.getName() : null};
+                });
+            } else {
+                writeNdjson(rows, out, MeetupDTO.class);
+            }
+        }
+    }
+
+    private <T> Stream<T> stream(String jpql, Class<T> type) {
+        return entityManager.createQuery(jpql, type)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    private <T> void writeNdjson(Stream<T> rows, OutputStream out, Class<T> type) throws IOException {
+        // sem flush por linha; o gerador descarrega quando o buffer enche
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // sem separador entre valores na raiz: cada linha é só o objeto seguido de \n
+            generator.setRootValueSeparator(null);
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private <T> void writeCsv(Stream<T> rows, OutputStream out, String header,
+                              Function<T, Object[]> columns) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(header);
+        writer.write('\n');
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writeCsvLine(writer, columns.apply(iterator.next()));
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csv(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    // RFC 4180: aspas em volta quando há vírgula, aspas ou quebra de linha, com aspas internas dobradas
+    static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,38 @@
+package com.bibs.meetups.service.idempotency;
+
+import java.util.Optional;
+
+// armazenamento durável das chaves, compartilhado entre instâncias; o IdempotentRequests fica na frente em memória
+public interface IdempotencyStore {
+
+    // reserva a chave para esta execução; false se outra requisição já tem (ou teve) a chave
+    boolean claim(String scope, String key, String fingerprint);
+
+    Optional<Record> find(String scope, String key);
+
+    void complete(String scope, String key, String response);
+
+    // a execução falhou: libera a chave para o próximo retry
+    void release(String scope, String key);
+
+    final class Record {
+
+        private final String fingerprint;
+
+        // null enquanto a primeira execução não terminou
+        private final String response;
+
+        public Record(String fingerprint, String response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getResponse() {
+            return response;
+        }
+    }
+}
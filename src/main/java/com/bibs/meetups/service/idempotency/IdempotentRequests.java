@@ -0,0 +1,186 @@
+package com.bibs.meetups.service.idempotency;
+
+import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// retries com o mesmo Idempotency-Key recebem a resposta da primeira execução, sem passar pelo serviço nem pelo banco.
+// Em memória (limitado e com TTL) sempre; com meetups.idempotency.store=jdbc as chaves também valem entre instâncias
+@Component
+public class IdempotentRequests implements MeterBinder {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    static final String CACHE_NAME = "idempotencyKeys";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final Counter REPLAYS = Metrics.counter("meetups.idempotency.replays");
+
+    private final Cache<String, Execution> executions;
+
+    private final IdempotencyStore store;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration inFlightTimeout;
+
+    public IdempotentRequests(@Value("${meetups.idempotency.maximum-size:100000}") long maximumSize,
+                              @Value("${meetups.idempotency.expire-after-write:24h}") Duration expireAfterWrite,
+                              @Value("${meetups.idempotency.in-flight-timeout:30s}") Duration inFlightTimeout,
+                              ObjectProvider<IdempotencyStore> store,
+                              ObjectMapper objectMapper) {
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.store = store.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.inFlightTimeout = inFlightTimeout;
+    }
+
+    // sem chave, só executa; a mesma chave com outra requisição é rejeitada
+    public <T> T execute(String scope, String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Invalid Idempotency-Key");
+        }
+        String id = scope + ':' + key;
+        Execution execution = new Execution(fingerprint(request));
+        Execution previous = executions.asMap().putIfAbsent(id, execution);
+        if (previous != null) {
+            return replay(previous, execution.fingerprint, type);
+        }
+
+        try {
+            T response = store == null ? action.get() : executeOnce(scope, key, execution.fingerprint, type, action);
+            execution.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            // só respostas de sucesso ficam guardadas; o próximo retry executa de novo
+            executions.asMap().remove(id, execution);
+            execution.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private <T> T executeOnce(String scope, String key, String fingerprint, Class<T> type, Supplier<T> action) {
+        if (!store.claim(scope, key, fingerprint)) {
+            // a primeira execução foi em outra instância (ou antes de um restart)
+            IdempotencyStore.Record record = store.find(scope, key).orElseThrow(IdempotentRequests::inProgress);
+            checkFingerprint(record.getFingerprint(), fingerprint);
+            if (record.getResponse() == null) {
+                throw inProgress();
+            }
+            REPLAYS.increment();
+            return read(record.getResponse(), type);
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            store.release(scope, key);
+            throw e;
+        }
+        store.complete(scope, key, write(response));
+        return response;
+    }
+
+    // o retry que chega com a primeira execução ainda em andamento espera por ela
+    private <T> T replay(Execution previous, String fingerprint, Class<T> type) {
+        checkFingerprint(previous.fingerprint, fingerprint);
+        try {
+            Object response = previous.response.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            REPLAYS.increment();
+            return type.cast(response);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private static void checkFingerprint(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new BusinessException("Idempotency-Key already used for a different request");
+        }
+    }
+
+    private static ConflictException inProgress() {
+        return new ConflictException("Request with this Idempotency-Key is still in progress");
+    }
+
+    // o corpo da requisição serializado resume o que foi pedido; o hash vai para o banco no lugar dele
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(write(request).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String value, Class<T> type) {
+        try {
+            return objectMapper.readValue(value, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, executions, CACHE_NAME);
+    }
+
+    private static final class Execution {
+
+        private final String fingerprint;
+
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+
+        private Execution(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
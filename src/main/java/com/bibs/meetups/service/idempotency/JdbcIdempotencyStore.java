@@ -0,0 +1,93 @@
+package com.bibs.meetups.service.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+// tabela idempotency_key, para os retries que caem em outra instância (meetups.idempotency.store=jdbc).
+// Cada comando roda na própria transação: a reserva da chave precisa estar visível antes da execução terminar.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "meetups.idempotency.store", havingValue = "jdbc")
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration expireAfterWrite;
+
+    private final Duration inFlightTimeout;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Value("${meetups.idempotency.expire-after-write:24h}") Duration expireAfterWrite,
+                                @Value("${meetups.idempotency.in-flight-timeout:30s}") Duration inFlightTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expireAfterWrite = expireAfterWrite;
+        this.inFlightTimeout = inFlightTimeout;
+    }
+
+    @Override
+    public boolean claim(String scope, String key, String fingerprint) {
+        Instant now = Instant.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "insert into idempotency_key (scope, idempotency_key, fingerprint, created_at) values (?, ?, ?, ?)",
+                    scope, key, fingerprint, Timestamp.from(now)));
+            return true;
+        } catch (DuplicateKeyException e) {
+            // a linha existente só é reaproveitada se expirou ou se a execução dela morreu sem responder
+            Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(
+                    "update idempotency_key set fingerprint = ?, response = null, created_at = ? " +
+                            "where scope = ? and idempotency_key = ? " +
+                            "and (created_at < ? or (response is null and created_at < ?))",
+                    fingerprint, Timestamp.from(now), scope, key,
+                    Timestamp.from(now.minus(expireAfterWrite)), Timestamp.from(now.minus(inFlightTimeout))));
+            return updated != null && updated == 1;
+        }
+    }
+
+    @Override
+    public Optional<Record> find(String scope, String key) {
+        return transactionTemplate.execute(status -> jdbcTemplate.query(
+                "select fingerprint, response from idempotency_key " +
+                        "where scope = ? and idempotency_key = ? and created_at >= ?",
+                (rs, rowNum) -> new Record(rs.getString("fingerprint"), rs.getString("response")),
+                scope, key, Timestamp.from(Instant.now().minus(expireAfterWrite))).stream().findFirst());
+    }
+
+    @Override
+    public void complete(String scope, String key, String response) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "update idempotency_key set response = ? where scope = ? and idempotency_key = ?",
+                response, scope, key));
+    }
+
+    @Override
+    public void release(String scope, String key) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "delete from idempotency_key where scope = ? and idempotency_key = ? and response is null",
+                scope, key));
+    }
+
+    // as chaves costumam ser UUIDs que nunca se repetem, então as expiradas só somem aqui
+    @Scheduled(fixedDelayString = "${meetups.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status -> jdbcTemplate.update(
+                "delete from idempotency_key where created_at < ?",
+                Timestamp.from(Instant.now().minus(expireAfterWrite))));
+        log.debug("Purged {} expired idempotency keys", purged);
+    }
+}
@@ -0,0 +1,274 @@
+package com.bibs.meetups.service.impl;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.controller.dto.MeetupFilterDTO;
+import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.MeetupCapacity;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.MeetupCapacityRepository;
+import com.bibs.meetups.repository.MeetupRepository;
+import com.bibs.meetups.service.MeetupService;
+import com.bibs.meetups.service.RegistrationService;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.capacity.SeatCounter;
+import com.bibs.meetups.service.outbox.Outbox;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+@Service
+@Transactional(readOnly = true)
+public class MeetupServiceImpl implements MeetupService {
+
+    MeetupRepository repository;
+
+    MeetupCapacityRepository capacityRepository;
+
+    RegistrationService registrationService;
+
+    SeatCounter seatCounter;
+
+    Outbox outbox;
+
+    AttendanceCounters attendanceCounters;
+
+    public MeetupServiceImpl(MeetupRepository repository, MeetupCapacityRepository capacityRepository,
+                             RegistrationService registrationService, SeatCounter seatCounter, Outbox outbox,
+                             AttendanceCounters attendanceCounters) {
+        this.repository = repository;
+        this.capacityRepository = capacityRepository;
+        this.registrationService = registrationService;
+        this.seatCounter = seatCounter;
+        this.outbox = outbox;
+        this.attendanceCounters = attendanceCounters;
+    }
+
+    @Override
+    @Transactional
+    @Timed("meetups.meetup")
+    public Meetup save(Meetup meetup) {
+        reserveSeats(meetup.getEvent(), 1);
+        // o índice único (registration, event) rejeita a inscrição repetida, sem consulta antes do insert
+        Meetup saved;
+        try {
+            saved = repository.saveAndFlush(meetup);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicated(e);
+        }
+        // e-mail, agenda e analytics saem do outbox depois do commit, fora da requisição
+        outbox.meetupRegistered(saved);
+        PersistenceSupport.afterCommit(() -> attendanceCounters.registered(List.of(saved)));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<Meetup> saveAll(List<Meetup> meetups) {
+        Map<String, Integer> seats = new HashMap<>();
+        meetups.forEach(meetup -> seats.merge(meetup.getEvent(), 1, Integer::sum));
+        seats.forEach(this::reserveSeats);
+        try {
+            List<Meetup> saved = repository.saveAll(meetups);
+            repository.flush();
+            outbox.meetupsRegistered(saved);
+            PersistenceSupport.afterCommit(() -> attendanceCounters.registered(saved));
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicated(e);
+        }
+    }
+
+    @Override
+    public Optional<Meetup> getById(Integer id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    @Transactional
+    public Meetup update(Meetup meetup) {
+        if (meetup == null || meetup.getId() == null) {
+            throw new IllegalArgumentException("Meetup id can't be null");
+        }
+        // o merge leria a linha de qualquer jeito: lida antes, ela diz de qual evento e registration a inscrição saiu
+        Optional<Meetup> current = repository.findById(meetup.getId());
+        String fromEvent = current.map(Meetup::getEvent).orElse(null);
+        Integer fromRegistrationId = current.map(Meetup::getRegistration).map(Registration::getId).orElse(null);
+        if (current.isPresent() && !Objects.equals(fromEvent, meetup.getEvent())) {
+            moveSeat(fromEvent, meetup.getEvent());
+        }
+        try {
+            // flush aqui dentro: a versão e o índice único só são conferidos no UPDATE, que sem ele sairia no commit
+            Meetup updated = repository.saveAndFlush(meetup);
+            if (current.isPresent()) {
+                Integer toRegistrationId = updated.getRegistration() != null ? updated.getRegistration().getId() : null;
+                PersistenceSupport.afterCommit(() -> attendanceCounters.moved(updated.getId(),
+                        fromEvent, fromRegistrationId, updated.getEvent(), toRegistrationId));
+            }
+            return updated;
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicated(e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ConflictException("Meetup was modified by another request");
+        }
+    }
+
+    @Override
+    public Page<Meetup> find(MeetupFilterDTO filterDTO, Pageable pageable) {
+        return findByFilter(filterDTO, Page.empty(pageable),
+                (registrationId, event, from, to) -> repository.findByFilter(registrationId, event, from, to, pageable));
+    }
+
+    @Override
+    @Timed("meetups.meetup")
+    public Page<MeetupDTO> findSummaries(MeetupFilterDTO filterDTO, Pageable pageable) {
+        return findByFilter(filterDTO, Page.empty(pageable),
+                (registrationId, event, from, to) -> repository.findSummariesByFilter(registrationId, event, from, to, pageable));
+    }
+
+    @Override
+    public Page<Meetup> getRegistrationsByMeetup(Registration registration, Pageable pageable) {
+        return repository.findByRegistration(registration, pageable);
+    }
+
+    @Override
+    public Slice<Meetup> findAfter(MeetupFilterDTO filterDTO, Integer lastId, int size) {
+        int afterId = lastId == null ? 0 : lastId;
+        return findByFilter(filterDTO, new SliceImpl<>(List.of(), PageRequest.of(0, size), false),
+                (registrationId, event, from, to) -> repository.findAfterByFilter(afterId, registrationId, event, from, to, size));
+    }
+
+    @Override
+    public long count() {
+        return repository.count();
+    }
+
+    @Override
+    public long count(MeetupFilterDTO filterDTO) {
+        return findByFilter(filterDTO, 0L, repository::countByFilter);
+    }
+
+    @Override
+    @Transactional
+    public MeetupCapacity setCapacity(String event, int capacity) {
+        // com lotação a linha já conta as inscrições, e o update espera o lock das reservas em andamento; na
+        // primeira lotação do evento as inscrições feitas sem limite são contadas na tabela de meetups
+        capacityRepository.createIfAbsent(event);
+        if (capacityRepository.updateCapacity(event, capacity) == 0) {
+            throw new BusinessException("Capacity below current registrations");
+        }
+        PersistenceSupport.afterCommit(() -> seatCounter.reset(event));
+        return capacityRepository.findById(event).orElseThrow();
+    }
+
+    @Override
+    public Optional<MeetupCapacity> getCapacity(String event) {
+        return capacityRepository.findById(event);
+    }
+
+    @Override
+    public long countRegistrations(String event) {
+        return attendanceCounters.registrations(event);
+    }
+
+    // primeiro o contador em memória (sem limite ou lotado, nem chega ao banco), depois o update condicional
+    // que garante a lotação
+    private void reserveSeats(String event, int seats) {
+        if (event == null) {
+            return;
+        }
+        SeatCounter.Reservation reservation = seatCounter.tryAcquire(event, seats);
+        if (reservation == SeatCounter.Reservation.UNLIMITED) {
+            return;
+        }
+        if (reservation == SeatCounter.Reservation.FULL) {
+            throw new BusinessException("Meetup is full");
+        }
+        int updated;
+        try {
+            updated = capacityRepository.reserve(event, seats);
+        } catch (RuntimeException e) {
+            seatCounter.release(event, seats);
+            throw e;
+        }
+        if (updated == 0) {
+            // o contador estava otimista (vagas tomadas por outra instância): relê do banco na próxima
+            seatCounter.reset(event);
+            throw new BusinessException("Meetup is full");
+        }
+        PersistenceSupport.afterRollback(() -> seatCounter.release(event, seats));
+    }
+
+    private void releaseSeat(String event) {
+        if (event == null || !seatCounter.isLimited(event)) {
+            return;
+        }
+        capacityRepository.release(event, 1);
+        PersistenceSupport.afterCommit(() -> seatCounter.release(event, 1));
+    }
+
+    // a inscrição trocou de evento: ocupa a vaga no novo e devolve a do antigo. Os dois locks de linha são
+    // tomados sempre na ordem dos nomes, para duas trocas em sentidos opostos não travarem uma à outra
+    private void moveSeat(String fromEvent, String toEvent) {
+        if (fromEvent != null && (toEvent == null || fromEvent.compareTo(toEvent) < 0)) {
+            releaseSeat(fromEvent);
+            reserveSeats(toEvent, 1);
+        } else {
+            reserveSeats(toEvent, 1);
+            releaseSeat(fromEvent);
+        }
+    }
+
+    // resolve o atributo registration para o id (consulta em cache) e filtra o meetup direto pela FK, sem join no where
+    private <R> R findByFilter(MeetupFilterDTO filterDTO, R empty, QueryByFilter<R> query) {
+        String registrationAttribute = filterDTO != null ? blankToNull(filterDTO.getRegistration()) : null;
+        String event = filterDTO != null ? blankToNull(filterDTO.getEvent()) : null;
+        LocalDate from = filterDTO != null ? filterDTO.getFrom() : null;
+        LocalDate to = filterDTO != null ? filterDTO.getTo() : null;
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BusinessException("Invalid date range");
+        }
+
+        Integer registrationId = null;
+        if (registrationAttribute != null) {
+            registrationId = registrationService.getRegistrationByRegistrationAtr(registrationAttribute)
+                    .map(Registration::getId)
+                    .orElse(null);
+            if (registrationId == null && event == null) {
+                return empty;
+            }
+        }
+        return query.apply(registrationId, event, from, to);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private RuntimeException translateDuplicated(DataIntegrityViolationException e) {
+        if (PersistenceSupport.isViolationOf(e, Meetup.UNIQUE_REGISTRATION_EVENT_INDEX)) {
+            return new BusinessException("Meetup already enrolled");
+        }
+        return e;
+    }
+
+    @FunctionalInterface
+    private interface QueryByFilter<R> {
+        R apply(Integer registrationId, String event, LocalDate from, LocalDate to);
+    }
+}
@@ -0,0 +1,66 @@
+package com.bibs.meetups.service.impl;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+
+// apoio comum às implementações de serviço
+final class PersistenceSupport {
+
+    private PersistenceSupport() {
+    }
+
+    // roda depois do commit, ou na hora quando não há transação ativa
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // desfaz efeitos fora do banco quando a transação volta; sem transação não há o que desfazer
+    static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    static boolean isViolationOf(DataIntegrityViolationException e, String constraintName) {
+        Throwable cause = e.getCause();
+        if (!(cause instanceof ConstraintViolationException)) {
+            return false;
+        }
+        ConstraintViolationException violation = (ConstraintViolationException) cause;
+        if (violation.getConstraintName() != null) {
+            return mentions(violation.getConstraintName(), constraintName);
+        }
+        // o dialeto não extraiu o nome (inserts em lote, mensagem de outro banco): procura na cadeia do driver
+        for (SQLException sql = violation.getSQLException(); sql != null; sql = sql.getNextException()) {
+            if (mentions(sql.getMessage(), constraintName)) {
+                return true;
+            }
+        }
+        return mentions(violation.getMessage(), constraintName);
+    }
+
+    private static boolean mentions(String message, String constraintName) {
+        return message != null && message.toLowerCase().contains(constraintName);
+    }
+}
@@ -1,55 +1,235 @@
 package com.bibs.meetups.service.impl;
 
+import com.bibs.meetups.config.replica.ReplicaRouting;
+import com.bibs.meetups.controller.dto.RegistrationBatchResultDTO;
 import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
+import com.bibs.meetups.model.entity.Meetup;
 import com.bibs.meetups.model.entity.Registration;
 import com.bibs.meetups.repository.RegistrationRepository;
 import com.bibs.meetups.service.RegistrationService;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.cache.RegistrationCache;
+import com.bibs.meetups.service.outbox.Outbox;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Service
 public class RegistrationServiceImpl implements RegistrationService {
 
+    // cada IN vai com no máximo isso de parâmetros (o padding do Hibernate arredonda para 512)
+    static final int LOOKUP_CHUNK_SIZE = 500;
+
     RegistrationRepository repository;
-    public RegistrationServiceImpl(RegistrationRepository repository) {
+
+    RegistrationCache cache;
+
+    RegistrationSearchIndex searchIndex;
+
+    Outbox outbox;
+
+    AttendanceCounters attendanceCounters;
+
+    public RegistrationServiceImpl(RegistrationRepository repository,
+                                   RegistrationCache cache,
+                                   RegistrationSearchIndex searchIndex,
+                                   Outbox outbox,
+                                   AttendanceCounters attendanceCounters) {
         this.repository = repository;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.outbox = outbox;
+        this.attendanceCounters = attendanceCounters;
     }
 
+    @Transactional // o evento do outbox entra na mesma transação do insert
+    @Timed("meetups.registration")
     public Registration save(Registration registration) {
-        if (repository.existsByRegistration(registration.getRegistration())) {
-            throw new BusinessException("Registration already created");
+        // o índice único é quem garante a unicidade, inclusive com requisições concorrentes
+        Registration saved;
+        try {
+            saved = repository.saveAndFlush(registration);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicated(e);
         }
+        outbox.registrationCreated(saved);
+        PersistenceSupport.afterCommit(() -> searchIndex.index(saved));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<RegistrationBatchResultDTO> saveAll(List<Registration> registrations) {
+        Set<String> codes = registrations.stream()
+                .map(Registration::getRegistration)
+                .collect(Collectors.toSet());
 
-        return repository.save(registration);
+        // uma única consulta para o lote inteiro em vez de um existsByRegistration por linha
+        Set<String> existing = codes.isEmpty() ? Set.of() : repository.findExistingRegistrations(codes);
+        Set<String> accepted = new HashSet<>();
+
+        List<Registration> toInsert = new ArrayList<>();
+        List<RegistrationBatchResultDTO> results = new ArrayList<>(registrations.size());
+        for (Registration registration : registrations) {
+            String code = registration.getRegistration();
+            RegistrationBatchResultDTO result = RegistrationBatchResultDTO.builder().registration(code).build();
+            if (existing.contains(code) || !accepted.add(code)) {
+                result.setStatus(RegistrationBatchResultDTO.Status.DUPLICATED);
+                result.setErrors(List.of("Registration already created"));
+            } else {
+                result.setStatus(RegistrationBatchResultDTO.Status.CREATED);
+                toInsert.add(registration);
+            }
+            results.add(result);
+        }
+
+        List<Registration> saved;
+        try {
+            saved = repository.saveAll(toInsert);
+            repository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // outra requisição inseriu o mesmo registration entre a consulta e o insert
+            throw translateDuplicated(e);
+        }
+        outbox.registrationsCreated(saved);
+        PersistenceSupport.afterCommit(() -> searchIndex.indexAll(saved));
+
+        int next = 0;
+        for (RegistrationBatchResultDTO result : results) {
+            if (result.getStatus() == RegistrationBatchResultDTO.Status.CREATED) {
+                result.setId(saved.get(next++).getId());
+            }
+        }
+        return results;
     }
 
+    // as buscas por chave enchem o cache: vão sempre ao primário, senão uma réplica atrasada devolveria ao cache
+    // a linha que um update acabou de invalidar
     @Override
     public Optional<Registration> getRegistrationByID(Integer id) {
-        return this.repository.findById(id);
+        return cache.getById(id, key -> ReplicaRouting.onPrimary(() -> repository.findById(key)));
     }
 
     @Override
+    @Transactional
+    @Timed("meetups.registration")
     public void delete(Registration registration) {
         if (registration == null || registration.getId() == null) {
             throw new IllegalArgumentException("Registration id can't be null");
         }
-        // método delete do JPA:
-        this.repository.delete(registration);
+        // método delete do JPA, com flush aqui dentro: a FK dos meetups só é conferida no DELETE
+        try {
+            this.repository.delete(registration);
+            this.repository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw translateReferenced(e);
+        } finally {
+            cache.evict(registration);
+        }
+        PersistenceSupport.afterCommit(() -> {
+            searchIndex.remove(registration.getId());
+            attendanceCounters.registrationDeleted(registration.getId());
+        });
     }
 
     @Override
+    @Timed("meetups.registration")
     public Registration update(Registration registration) {
         if (registration == null || registration.getId() == null) {
             throw new IllegalArgumentException("Registration id can't be null");
         }
-        return this.repository.save(registration);
+        Registration updated;
+        try {
+            updated = this.repository.save(registration);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw conflict();
+        } finally {
+            cache.evict(registration);
+        }
+        PersistenceSupport.afterCommit(() -> searchIndex.index(updated));
+        return updated;
     }
 
     @Override
+    @Timed("meetups.registration")
+    public boolean update(Integer id, Integer expectedVersion, String name, LocalDate dateOfRegistration) {
+        // o PUT troca o nome mesmo quando vem nulo, então o índice acompanha
+        return updated(id, expectedVersion, name, true,
+                repository.updateIfMatch(id, expectedVersion, name, dateOfRegistration));
+    }
+
+    @Override
+    @Timed("meetups.registration")
+    public boolean patch(Integer id, Integer expectedVersion, String name, LocalDate dateOfRegistration) {
+        return updated(id, expectedVersion, name, name != null,
+                repository.patchIfMatch(id, expectedVersion, name, dateOfRegistration));
+    }
+
+    private boolean updated(Integer id, Integer expectedVersion, String name, boolean renamed, int rows) {
+        if (rows == 0) {
+            // só no caminho de falha: separa o 404 do 409
+            if (expectedVersion != null && ReplicaRouting.onPrimary(() -> repository.existsById(id))) {
+                throw conflict();
+            }
+            return false;
+        }
+        // o atributo registration não muda no update, então basta invalidar pelo id
+        cache.evict(Registration.builder().id(id).build());
+        if (renamed) {
+            PersistenceSupport.afterCommit(() -> searchIndex.rename(id, name));
+        }
+        return true;
+    }
+
+    @Override
+    @Timed("meetups.registration")
+    @Transactional(readOnly = true) // listagens e contagens podem ir para a réplica
     public Page<Registration> find(Registration filter, PageRequest pageRequest) {
+        if (searchable(filter, pageRequest)) {
+            Page<Integer> ids = searchIndex.search(filter.getName(), filter.getRegistration(), pageRequest);
+            // do primário: o que faltar aqui sai do índice, e uma réplica atrasada ainda não tem os commits recentes
+            Map<Integer, Registration> found = ReplicaRouting.onPrimary(() -> repository.findAllById(ids.getContent()))
+                    .stream()
+                    .collect(Collectors.toMap(Registration::getId, Function.identity()));
+            List<Registration> content = ids.getContent()
+                    .stream()
+                    .map(found::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            // ids que o índice ainda tinha mas a tabela não (apagados por outra instância antes do próximo rebuild):
+            // saem do índice e do total, para o total não contar linhas que a página não entrega
+            int missing = ids.getNumberOfElements() - content.size();
+            if (missing > 0) {
+                ids.getContent().stream().filter(id -> !found.containsKey(id)).forEach(searchIndex::remove);
+            }
+            return new PageImpl<>(content, pageRequest, ids.getTotalElements() - missing);
+        }
+
         Example<Registration> example = Example.of(filter,
                 ExampleMatcher
                         .matching()
@@ -60,7 +240,101 @@ public class RegistrationServiceImpl implements RegistrationService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Registration> findAfter(Registration filter, Integer lastId, int size) {
+        // seek pelo id em vez de OFFSET, e Slice em vez de Page para não disparar o COUNT
+        int afterId = lastId == null ? 0 : lastId;
+        if (!filtered(filter)) {
+            return repository.findByIdGreaterThan(afterId, PageRequest.of(0, size, Sort.by("id")));
+        }
+        return repository.findAfterByFilter(afterId, filter, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return repository.count();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count(Registration filter) {
+        return filtered(filter) ? repository.countByFilter(filter) : repository.count();
+    }
+
+    private static boolean filtered(Registration filter) {
+        return filter != null
+                && (filter.getName() != null || filter.getRegistration() != null || filter.getDateOfRegistration() != null);
+    }
+
+    @Override
+    @Timed("meetups.registration")
     public Optional<Registration> getRegistrationByRegistrationAtr(String registrationAttribute) {
-        return repository.findByRegistration(registrationAttribute);
+        return cache.getIdByRegistration(registrationAttribute,
+                        key -> ReplicaRouting.onPrimary(() -> repository.findByRegistration(key)))
+                .flatMap(this::getRegistrationByID);
+    }
+
+    @Override
+    @Timed("meetups.registration")
+    public Map<Integer, Registration> getRegistrationsByIds(Collection<Integer> ids) {
+        return cache.getAllById(new LinkedHashSet<>(ids), this::findByIds);
+    }
+
+    @Override
+    @Timed("meetups.registration")
+    public Map<String, Registration> getRegistrationsByRegistrationAtrs(Collection<String> registrationAttributes) {
+        return cache.getAllByRegistration(new LinkedHashSet<>(registrationAttributes), missing ->
+                        ReplicaRouting.onPrimary(() ->
+                                inChunks(missing, repository::findByRegistrationIn, Registration::getRegistration)),
+                this::findByIds);
+    }
+
+    @Override
+    public long countMeetups(Integer registrationId) {
+        return attendanceCounters.meetups(registrationId);
+    }
+
+    private Map<Integer, Registration> findByIds(Set<Integer> ids) {
+        return ReplicaRouting.onPrimary(() -> inChunks(ids, repository::findAllById, Registration::getId));
+    }
+
+    // um IN por lote de chaves, em vez de uma consulta por chave
+    private static <K> Map<K, Registration> inChunks(Set<K> keys, Function<List<K>, List<Registration>> query,
+                                                     Function<Registration, K> key) {
+        List<K> all = new ArrayList<>(keys);
+        Map<K, Registration> found = new HashMap<>();
+        for (int from = 0; from < all.size(); from += LOOKUP_CHUNK_SIZE) {
+            query.apply(all.subList(from, Math.min(all.size(), from + LOOKUP_CHUNK_SIZE)))
+                    .forEach(registration -> found.put(key.apply(registration), registration));
+        }
+        return found;
+    }
+
+    // o índice só cobre name e registration, em ordem de id; outros filtros e ordenações vão para o banco
+    private boolean searchable(Registration filter, PageRequest pageRequest) {
+        return searchIndex.isReady()
+                && filter.getId() == null
+                && filter.getDateOfRegistration() == null
+                && pageRequest.getSort().isUnsorted();
+    }
+
+    private static ConflictException conflict() {
+        return new ConflictException("Registration was modified by another request");
+    }
+
+    // a FK não tem cascade: quem ainda está inscrito em meetups não pode ser apagado
+    private static RuntimeException translateReferenced(DataIntegrityViolationException e) {
+        if (PersistenceSupport.isViolationOf(e, Meetup.REGISTRATION_FOREIGN_KEY)) {
+            return new ConflictException("Registration has meetups");
+        }
+        return e;
+    }
+
+    private RuntimeException translateDuplicated(DataIntegrityViolationException e) {
+        if (PersistenceSupport.isViolationOf(e, Registration.UNIQUE_REGISTRATION_INDEX)) {
+            return new BusinessException("Registration already created");
+        }
+        return e;
     }
 }
@@ -0,0 +1,20 @@
+package com.bibs.meetups.service.outbox;
+
+import com.bibs.meetups.model.entity.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// sink padrão para desenvolvimento local: só escreve os eventos no log
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "meetups.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(event -> log.info("Outbox event {} {} {}", event.getId(), event.getType(), event.getPayload()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.bibs.meetups.service.outbox;
+
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.OutboxEvent;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// grava os eventos na transação de quem chama: se a inscrição voltar, o evento volta junto
+@Component
+public class Outbox {
+
+    public static final String MEETUP_REGISTERED = "MeetupRegistered";
+
+    public static final String REGISTRATION_CREATED = "RegistrationCreated";
+
+    private final OutboxEventRepository repository;
+
+    private final ObjectMapper objectMapper;
+
+    public Outbox(OutboxEventRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void meetupRegistered(Meetup meetup) {
+        repository.save(meetupEvent(meetup, Instant.now()));
+    }
+
+    public void meetupsRegistered(List<Meetup> meetups) {
+        Instant now = Instant.now();
+        repository.saveAll(meetups.stream().map(meetup -> meetupEvent(meetup, now)).collect(Collectors.toList()));
+    }
+
+    public void registrationCreated(Registration registration) {
+        repository.save(registrationEvent(registration, Instant.now()));
+    }
+
+    public void registrationsCreated(List<Registration> registrations) {
+        Instant now = Instant.now();
+        repository.saveAll(registrations.stream()
+                .map(registration -> registrationEvent(registration, now))
+                .collect(Collectors.toList()));
+    }
+
+    private OutboxEvent meetupEvent(Meetup meetup, Instant now) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("meetupId", meetup.getId());
+        payload.put("event", meetup.getEvent());
+        payload.put("meetupDate", meetup.getMeetupDate() != null ? meetup.getMeetupDate().toString() : null);
+        payload.put("registrationId", meetup.getRegistration() != null ? meetup.getRegistration().getId() : null);
+        return event(MEETUP_REGISTERED, meetup.getId(), payload, now);
+    }
+
+    private OutboxEvent registrationEvent(Registration registration, Instant now) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("registrationId", registration.getId());
+        payload.put("registration", registration.getRegistration());
+        payload.put("name", registration.getName());
+        return event(REGISTRATION_CREATED, registration.getId(), payload, now);
+    }
+
+    private OutboxEvent event(String type, Integer aggregateId, Map<String, Object> payload, Instant now) {
+        try {
+            return OutboxEvent.builder()
+                    .type(type)
+                    .aggregateId(aggregateId)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(now)
+                    .attempts(0)
+                    .nextAttemptAt(now)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
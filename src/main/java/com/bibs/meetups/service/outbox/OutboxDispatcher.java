@@ -0,0 +1,96 @@
+package com.bibs.meetups.service.outbox;
+
+import com.bibs.meetups.model.entity.OutboxEvent;
+import com.bibs.meetups.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// entrega os eventos do outbox em lotes, fora da requisição: o custo dos sinks não entra na latência da inscrição
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "meetups.outbox.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxDispatcher {
+
+    private static final Counter DISPATCHED = Metrics.counter("meetups.outbox.dispatched");
+
+    private static final Counter FAILURES = Metrics.counter("meetups.outbox.failures");
+
+    private final OutboxEventRepository repository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final List<OutboxSink> sinks;
+
+    private final int batchSize;
+
+    private final Duration retryBackoff;
+
+    private final Duration maxRetryBackoff;
+
+    public OutboxDispatcher(OutboxEventRepository repository,
+                            PlatformTransactionManager transactionManager,
+                            List<OutboxSink> sinks,
+                            @Value("${meetups.outbox.batch-size:100}") int batchSize,
+                            @Value("${meetups.outbox.retry-backoff:1s}") Duration retryBackoff,
+                            @Value("${meetups.outbox.max-retry-backoff:5m}") Duration maxRetryBackoff) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+
+    // esvazia o que está pendente, lote a lote; um lote incompleto quer dizer que não sobrou nada
+    @Scheduled(fixedDelayString = "${meetups.outbox.poll-interval:PT1S}")
+    public void dispatch() {
+        int dispatched;
+        do {
+            dispatched = dispatchBatch();
+        } while (dispatched == batchSize);
+    }
+
+    // um lote por transação: as linhas ficam travadas até a entrega terminar, e só então são apagadas
+    int dispatchBatch() {
+        Integer dispatched = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxEvent> events = repository.findByNextAttemptAtLessThanEqualOrderById(now,
+                    PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            try {
+                sinks.forEach(sink -> sink.publish(events));
+            } catch (RuntimeException e) {
+                FAILURES.increment();
+                log.warn("Outbox batch of {} events failed, retrying later", events.size(), e);
+                events.forEach(event -> retryLater(event, now));
+                return 0;
+            }
+            repository.deleteAllInBatch(events);
+            DISPATCHED.increment(events.size());
+            return events.size();
+        });
+        return dispatched != null ? dispatched : 0;
+    }
+
+    // espera dobrando a cada tentativa, até o máximo; o evento nunca é descartado
+    private void retryLater(OutboxEvent event, Instant now) {
+        int attempts = event.getAttempts() + 1;
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        event.setAttempts(attempts);
+        event.setNextAttemptAt(now.plus(backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff));
+    }
+}
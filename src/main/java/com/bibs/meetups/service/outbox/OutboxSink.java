@@ -0,0 +1,12 @@
+package com.bibs.meetups.service.outbox;
+
+import com.bibs.meetups.model.entity.OutboxEvent;
+
+import java.util.List;
+
+// destino dos eventos (e-mail, agenda, analytics...). Entrega pelo menos uma vez: um lote que falhou volta
+// inteiro para todos os sinks, então quem recebe deduplica pelo id do evento
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events);
+}
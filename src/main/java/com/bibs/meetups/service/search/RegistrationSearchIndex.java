@@ -0,0 +1,322 @@
+package com.bibs.meetups.service.search;
+
+import com.bibs.meetups.config.replica.ReplicaRouting;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.RegistrationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// índice invertido de trigramas sobre name e registration, para busca por substring e prefixo sem LIKE '%...%'.
+// Cada instância mantém o seu: as escritas locais entram depois do commit, e as das outras instâncias só chegam
+// no rebuild periódico (meetups.search.registration.reconcile-interval)
+@Slf4j
+@Component
+public class RegistrationSearchIndex {
+
+    private static final int GRAM = 3;
+
+    // marca o início do texto, assim um prefixo de 2 letras já vira um trigrama
+    private static final char ANCHOR = '\u0002';
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final RegistrationRepository repository;
+
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Postings postings = new Postings();
+
+    // escritas locais que chegam enquanto um rebuild lê o banco; são reaplicadas no índice novo antes da troca
+    private List<Consumer<Postings>> journal;
+
+    private volatile boolean ready;
+
+    public RegistrationSearchIndex(RegistrationRepository repository,
+                                   @Value("${meetups.search.registration.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    // monta um índice novo ao lado do atual e troca os dois no fim, assim somem também as linhas apagadas
+    // e renomeadas por outras instâncias; durante a carga as buscas seguem no índice anterior
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${meetups.search.registration.reconcile-interval:PT5M}",
+            initialDelayString = "${meetups.search.registration.reconcile-interval:PT5M}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        write(() -> journal = new ArrayList<>());
+        try {
+            Postings rebuilt = new Postings();
+            int lastId = 0;
+            Slice<Registration> page;
+            do {
+                // do primário: uma réplica atrasada devolveria linhas que um commit acabou de trocar
+                int after = lastId;
+                page = ReplicaRouting.onPrimary(() ->
+                        repository.findByIdGreaterThan(after, PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id"))));
+                page.getContent().forEach(rebuilt::add);
+                if (page.hasContent()) {
+                    lastId = page.getContent().get(page.getNumberOfElements() - 1).getId();
+                }
+            } while (page.hasNext());
+
+            write(() -> {
+                journal.forEach(change -> change.accept(rebuilt));
+                postings = rebuilt;
+            });
+        } finally {
+            write(() -> journal = null);
+        }
+        ready = true;
+        log.info("Registration search index built with {} documents in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Registration registration) {
+        apply(current -> current.add(registration));
+    }
+
+    public void indexAll(Collection<Registration> registrations) {
+        apply(current -> registrations.forEach(current::add));
+    }
+
+    // troca só o nome de um documento já indexado, para updates que não leem a linha inteira
+    public void rename(Integer id, String name) {
+        apply(current -> current.rename(id, name));
+    }
+
+    public void remove(Integer id) {
+        apply(current -> current.remove(id));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // substring nos dois campos, ignorando caixa, como o ExampleMatcher CONTAINING; ids em ordem crescente
+    public Page<Integer> search(String name, String registration, Pageable pageable) {
+        return page(matches(name, registration, false), pageable);
+    }
+
+    public Page<Integer> searchPrefix(String name, String registration, Pageable pageable) {
+        return page(matches(name, registration, true), pageable);
+    }
+
+    private void apply(Consumer<Postings> change) {
+        write(() -> {
+            change.accept(postings);
+            if (journal != null) {
+                journal.add(change);
+            }
+        });
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private RoaringBitmap matches(String name, String registration, boolean prefix) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = postings.all.clone();
+            if (!isBlank(name)) {
+                result.and(postings.match(postings.nameGrams, normalize(name), prefix, document -> document.name));
+            }
+            if (!isBlank(registration)) {
+                result.and(postings.match(postings.registrationGrams, normalize(registration), prefix,
+                        document -> document.registration));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Page<Integer> page(RoaringBitmap matches, Pageable pageable) {
+        List<Integer> ids = new ArrayList<>(pageable.getPageSize());
+        IntIterator iterator = matches.getIntIterator();
+        long skip = pageable.getOffset();
+        while (iterator.hasNext() && ids.size() < pageable.getPageSize()) {
+            int id = iterator.next();
+            if (skip > 0) {
+                skip--;
+            } else {
+                ids.add(id);
+            }
+        }
+        return new PageImpl<>(ids, pageable, matches.getLongCardinality());
+    }
+
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>(Math.max(0, text.length() - GRAM + 1));
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    // os documentos e as posting lists de um índice; só é lido e alterado com o lock de fora
+    private static final class Postings {
+
+        private final Map<Integer, Document> documents = new HashMap<>();
+
+        private final Map<String, RoaringBitmap> nameGrams = new HashMap<>();
+
+        private final Map<String, RoaringBitmap> registrationGrams = new HashMap<>();
+
+        private final RoaringBitmap all = new RoaringBitmap();
+
+        private void add(Registration registration) {
+            Integer id = registration.getId();
+            Document previous = documents.get(id);
+            if (previous != null) {
+                unpost(nameGrams, previous.name, id);
+                unpost(registrationGrams, previous.registration, id);
+            }
+            Document document = new Document(normalize(registration.getName()), normalize(registration.getRegistration()));
+            documents.put(id, document);
+            post(nameGrams, document.name, id);
+            post(registrationGrams, document.registration, id);
+            all.add(id);
+        }
+
+        private void rename(Integer id, String name) {
+            Document previous = documents.get(id);
+            if (previous != null) {
+                unpost(nameGrams, previous.name, id);
+                Document document = new Document(normalize(name), previous.registration);
+                documents.put(id, document);
+                post(nameGrams, document.name, id);
+            }
+        }
+
+        private void remove(Integer id) {
+            Document previous = documents.remove(id);
+            if (previous != null) {
+                unpost(nameGrams, previous.name, id);
+                unpost(registrationGrams, previous.registration, id);
+                all.remove(id);
+            }
+        }
+
+        private RoaringBitmap match(Map<String, RoaringBitmap> grams, String query, boolean prefix,
+                                    Function<Document, String> field) {
+            String text = prefix ? ANCHOR + query : query;
+
+            RoaringBitmap candidates;
+            if (text.length() < GRAM) {
+                // consulta curta demais para virar trigrama: varre os documentos em memória
+                candidates = all;
+            } else {
+                candidates = null;
+                for (String gram : grams(text)) {
+                    RoaringBitmap posting = grams.get(gram);
+                    if (posting == null) {
+                        return new RoaringBitmap();
+                    }
+                    candidates = candidates == null ? posting.clone() : RoaringBitmap.and(candidates, posting);
+                    if (candidates.isEmpty()) {
+                        return candidates;
+                    }
+                }
+            }
+
+            // os trigramas podem casar fora de ordem, então confirma no texto
+            RoaringBitmap confirmed = new RoaringBitmap();
+            IntIterator ids = candidates.getIntIterator();
+            while (ids.hasNext()) {
+                int id = ids.next();
+                String value = field.apply(documents.get(id));
+                if (value != null && (prefix ? value.startsWith(query) : value.contains(query))) {
+                    confirmed.add(id);
+                }
+            }
+            return confirmed;
+        }
+
+        private static void post(Map<String, RoaringBitmap> grams, String value, int id) {
+            if (value == null) {
+                return;
+            }
+            for (String gram : grams(ANCHOR + value)) {
+                grams.computeIfAbsent(gram, key -> new RoaringBitmap()).add(id);
+            }
+        }
+
+        private static void unpost(Map<String, RoaringBitmap> grams, String value, int id) {
+            if (value == null) {
+                return;
+            }
+            for (String gram : grams(ANCHOR + value)) {
+                RoaringBitmap posting = grams.get(gram);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.isEmpty()) {
+                        grams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Document {
+
+        private final String name;
+
+        private final String registration;
+
+        private Document(String name, String registration) {
+            this.name = name;
+            this.registration = registration;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+-- esquema inicial; SQL comum ao H2 (dev e testes) e ao PostgreSQL (perfil prod)
+
+-- incremento igual ao allocationSize das entidades: o Hibernate reserva 50 ids por chamada
+create sequence registration_seq start with 1 increment by 50;
+create sequence meetup_seq start with 1 increment by 50;
+
+create table registration (
+    registration_id      integer      not null,
+    registration_name    varchar(255),
+    date_of_registration varchar(255),
+    registration         varchar(255) not null,
+    version              integer      default 0 not null,
+    constraint pk_registration primary key (registration_id)
+);
+
+create unique index ux_registration_registration on registration (registration);
+create index ix_registration_name on registration (registration_name);
+
+create table meetup (
+    id              integer not null,
+    event           varchar(255),
+    id_registration integer,
+    meetup_date     varchar(255),
+    registered      boolean,
+    version         integer default 0 not null,
+    constraint pk_meetup primary key (id)
+);
+
+create unique index ux_meetup_registration_event on meetup (id_registration, event);
+-- índice próprio da FK: o PostgreSQL não cria um, e criado antes da constraint o H2 reaproveita em vez de duplicar
+create index ix_meetup_registration on meetup (id_registration);
+alter table meetup add constraint fk_meetup_registration
+    foreign key (id_registration) references registration (registration_id);
+create index ix_meetup_event on meetup (event);
+
+create table meetup_capacity (
+    event    varchar(255) not null,
+    capacity integer      not null,
+    reserved integer      not null,
+    constraint pk_meetup_capacity primary key (event)
+);
@@ -0,0 +1,17 @@
+-- datas como DATE (antes varchar dd/MM/yyyy), para ordenar e filtrar por intervalo usando índice.
+-- Valores fora do formato antigo não têm data recuperável e ficam nulos.
+
+alter table registration add column registration_day date;
+update registration set registration_day = to_date(date_of_registration, 'DD/MM/YYYY')
+    where date_of_registration like '__/__/____';
+alter table registration drop column date_of_registration;
+alter table registration rename column registration_day to date_of_registration;
+
+alter table meetup add column meetup_day date;
+update meetup set meetup_day = to_date(meetup_date, 'DD/MM/YYYY')
+    where meetup_date like '__/__/____';
+alter table meetup drop column meetup_date;
+alter table meetup rename column meetup_day to meetup_date;
+
+create index ix_registration_date on registration (date_of_registration);
+create index ix_meetup_date on meetup (meetup_date);
@@ -0,0 +1,13 @@
+-- respostas já dadas por Idempotency-Key, usadas com meetups.idempotency.store=jdbc
+
+create table idempotency_key (
+    scope           varchar(64)   not null,
+    idempotency_key varchar(255)  not null,
+    fingerprint     varchar(64)   not null,
+    response        varchar(4000),
+    created_at      timestamp     not null,
+    constraint pk_idempotency_key primary key (scope, idempotency_key)
+);
+
+-- limpeza periódica das chaves expiradas
+create index ix_idempotency_key_created_at on idempotency_key (created_at);
@@ -0,0 +1,18 @@
+-- efeitos colaterais (e-mail, agenda, analytics) gravados na mesma transação da inscrição
+-- e entregues depois pelo OutboxDispatcher
+
+create sequence outbox_event_seq start with 1 increment by 50;
+
+create table outbox_event (
+    id              bigint        not null,
+    event_type      varchar(64)   not null,
+    aggregate_id    integer,
+    payload         varchar(4000) not null,
+    created_at      timestamp     not null,
+    attempts        integer       default 0 not null,
+    next_attempt_at timestamp     not null,
+    constraint pk_outbox_event primary key (id)
+);
+
+-- o dispatcher só lê o que já pode ser entregue; entregues saem da tabela
+create index ix_outbox_event_next_attempt on outbox_event (next_attempt_at);
@@ -0,0 +1,9 @@
+-- uma linha só, regravada pelo ReplicaLagMonitor no primário; lida na réplica, dá o atraso da replicação
+
+create table replica_heartbeat (
+    id      integer   not null,
+    beat_at timestamp not null,
+    constraint pk_replica_heartbeat primary key (id)
+);
+
+insert into replica_heartbeat (id, beat_at) values (1, current_timestamp);
@@ -0,0 +1,4 @@
+-- a linha de meetup_capacity nasce no primeiro setCapacity do evento; capacity nula é a linha recém-criada,
+-- ainda sem limite. Evento sem limite não tem linha nem mantém reserved, que só conta a partir da primeira lotação
+
+alter table meetup_capacity alter column capacity drop not null;
@@ -0,0 +1,6 @@
+-- o ux_meetup_registration_event começa por id_registration e já cobre a FK e a busca pelos meetups do registration.
+-- O H2 prende o índice à FK que o reaproveitou, então a FK sai e volta, agora apoiada no índice composto
+alter table meetup drop constraint fk_meetup_registration;
+drop index ix_meetup_registration;
+alter table meetup add constraint fk_meetup_registration
+    foreign key (id_registration) references registration (registration_id);
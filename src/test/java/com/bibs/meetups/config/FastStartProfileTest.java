@@ -0,0 +1,52 @@
+package com.bibs.meetups.config;
+
+import com.bibs.meetups.service.export.ExportService;
+import com.bibs.meetups.service.outbox.OutboxDispatcher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "meetups.search.registration.enabled=false")
+@ActiveProfiles("faststart")
+@AutoConfigureMockMvc
+public class FastStartProfileTest {
+
+    @Autowired
+    ConfigurableApplicationContext context;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should start lazily, without Swagger, keep the scheduled beans eager and serve the first request")
+    public void lazyStartupTest() throws Exception {
+
+        // cenario: depois da subida
+        assertThat(context.getBeanNamesForType(Docket.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(SwaggerConfig.class)).isEmpty();
+        // o dispatcher não é dependência de ninguém: sem o filtro do SchedulingConfig nunca seria criado
+        assertThat(context.getBeanFactory().containsSingleton(beanName(OutboxDispatcher.class))).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton(beanName(ExportService.class))).isFalse();
+
+        // execução / assert: os controllers e serviços são criados na primeira requisição
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/meetups?size=1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/registration/11"))
+                .andExpect(status().isNotFound());
+        assertThat(context.getBeanFactory().containsSingleton(beanName(ExportService.class))).isTrue();
+    }
+
+    private String beanName(Class<?> type) {
+        return context.getBeanNamesForType(type)[0];
+    }
+}
@@ -0,0 +1,78 @@
+package com.bibs.meetups.config;
+
+import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.service.RegistrationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+// o perfil prod inteiro (pool, batch, dialeto PostgreSQL), trocando só a URL por um H2 em modo PostgreSQL
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        // o information_schema do H2 não tem as colunas de sequence do PostgreSQL que o Hibernate lê para
+        // validar o esquema; o mapeamento contra as migrações já é validado nos outros testes
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.id.sequence.increment_size_mismatch_strategy=none",
+        "meetups.search.registration.enabled=false"})
+@ActiveProfiles("prod")
+@ExtendWith(OutputCaptureExtension.class)
+public class ProductionProfileTest {
+
+    @Autowired
+    RegistrationService registrationService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Should log the effective pool and batch configuration on startup")
+    public void startupSettingsTest(CapturedOutput output) {
+
+        assertThat(output).contains("JDBC batch_size=500 order_inserts=true order_updates=true");
+        assertThat(output).contains("Connection pool meetups");
+        assertThat(output).contains("maximumPoolSize=20 minimumIdle=20 connectionTimeout=2000ms autoCommit=false");
+    }
+
+    @Test
+    @DisplayName("Should run the registration flow with the PostgreSQL dialect")
+    public void postgresDialectTest() {
+
+        // cenario
+        assertThat(entityManagerFactory.getProperties().get("hibernate.dialect"))
+                .isEqualTo("org.hibernate.dialect.PostgreSQL10Dialect");
+        Registration registration = registrationService.save(Registration.builder()
+                .name("Paula")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration("PG-001")
+                .build());
+
+        // execução
+        Throwable duplicated = catchThrowable(() -> registrationService.save(Registration.builder()
+                .name("Ana")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration("PG-001")
+                .build()));
+        boolean patched = registrationService.patch(registration.getId(), registration.getVersion(), "Paula Souza", null);
+
+        // assert: o nome do índice único e o update condicional funcionam no dialeto de produção
+        assertThat(duplicated).isInstanceOf(BusinessException.class).hasMessage("Registration already created");
+        assertThat(patched).isTrue();
+        assertThat(registrationService.getRegistrationByID(registration.getId()).orElseThrow().getName())
+                .isEqualTo("Paula Souza");
+    }
+}
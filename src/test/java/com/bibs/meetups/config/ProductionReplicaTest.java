@@ -0,0 +1,54 @@
+package com.bibs.meetups.config;
+
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.service.RegistrationService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// o perfil prod com réplica: dois H2 em modo PostgreSQL no lugar do primário e da réplica
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "meetups.datasource.replica.url=jdbc:h2:mem:prod-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "meetups.datasource.replica.username=sa",
+        "meetups.datasource.replica.migrate=true",
+        "meetups.datasource.replica.heartbeat-interval=PT1H",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.id.sequence.increment_size_mismatch_strategy=none",
+        "meetups.search.registration.enabled=false"})
+@ActiveProfiles("prod")
+public class ProductionReplicaTest {
+
+    @Autowired
+    RegistrationService registrationService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replicaDataSource;
+
+    @Test
+    @DisplayName("Should open replica connections with the same auto-commit as the primary")
+    public void replicaAutoCommitTest() {
+
+        // execução: uma listagem somente leitura, que pode ir para a réplica
+        long total = registrationService.find(Registration.builder().build(), PageRequest.of(0, 10)).getTotalElements();
+
+        // assert: com provider_disables_autocommit o Hibernate confia que o pool já desligou o autocommit
+        assertThat(primaryDataSource.isAutoCommit()).isFalse();
+        assertThat(replicaDataSource.isAutoCommit()).isFalse();
+        assertThat(total).isZero();
+    }
+}
@@ -0,0 +1,80 @@
+package com.bibs.meetups.config;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.controller.dto.RegistrationDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// sobe a API numa porta aleatória e faz o papel do Prometheus, raspando /actuator/prometheus depois do tráfego
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "meetups.execution.mode=async") // a contagem de SQL precisa acompanhar a listagem até o pool
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+public class PrometheusMetricsTest {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    @DisplayName("Should expose endpoint latency, service timers, SQL per request and rejections to Prometheus")
+    public void scrapeTest() {
+
+        // cenario
+        RegistrationDTO registration = RegistrationDTO.builder()
+                .name("Paula").dateOfRegistration("04/04/2022").registration("PROM-001").build();
+        assertThat(restTemplate.postForEntity("/api/registration", registration, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        assertThat(restTemplate.postForEntity("/api/registration", registration, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        MeetupDTO meetup = MeetupDTO.builder().registrationAttribute("PROM-001").event("Womakerscode Dados").build();
+        assertThat(restTemplate.postForEntity("/api/meetups", meetup, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        assertThat(restTemplate.getForEntity("/api/meetups?event=Womakerscode Dados", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+        assertThat(restTemplate.getForEntity("/api/registration?name=Paula", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+
+        // execução
+        ResponseEntity<String> scrape = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // assert
+        assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String metrics = scrape.getBody();
+        assertThat(metrics).contains("http_server_requests_seconds_bucket{");
+        assertThat(value(metrics, "http_server_requests_seconds_count", "uri=\"/api/meetups\"", "method=\"POST\"")).isEqualTo(1);
+        assertThat(value(metrics, "meetups_registration_seconds_count", "method=\"save\"", "exception=\"none\"")).isEqualTo(1);
+        assertThat(value(metrics, "meetups_registration_seconds_count", "method=\"save\"", "exception=\"BusinessException\"")).isEqualTo(1);
+        assertThat(value(metrics, "meetups_meetup_seconds_count", "method=\"findSummaries\"")).isEqualTo(1);
+        assertThat(value(metrics, "meetups_business_rejections_total", "reason=\"Registration already created\"")).isEqualTo(1);
+        assertThat(value(metrics, "meetups_mapping_seconds_count", "type=\"registration\"")).isGreaterThanOrEqualTo(1);
+        // a listagem roda no pool async e mesmo assim as consultas dela entram na conta da requisição
+        assertThat(value(metrics, "meetups_db_queries_statements_sum", "uri=\"/api/meetups\"", "method=\"GET\"")).isGreaterThan(0);
+        assertThat(value(metrics, "meetups_db_queries_statements_sum", "uri=\"/api/meetups\"", "method=\"POST\"")).isGreaterThan(0);
+    }
+
+    // valor da primeira série com o nome e todas as labels pedidas
+    private static double value(String metrics, String name, String... labels) {
+        Matcher line = Pattern.compile("(?m)^" + name + "\\{([^}]*)} (\\S+)$").matcher(metrics);
+        while (line.find()) {
+            String found = line.group(1);
+            if (Arrays.stream(labels).allMatch(found::contains)) {
+                return Double.parseDouble(line.group(2));
+            }
+        }
+        throw new AssertionError("No " + name + " series with " + Arrays.toString(labels));
+    }
+}
@@ -0,0 +1,142 @@
+package com.bibs.meetups.config;
+
+import com.bibs.meetups.config.replica.ReplicaLagMonitor;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.service.MeetupService;
+import com.bibs.meetups.service.RegistrationService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// dois H2 em memória no lugar do primário e da réplica; a "replicação" do heartbeat é feita à mão
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "meetups.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "meetups.datasource.replica.migrate=true",
+        "meetups.datasource.replica.max-lag=5s",
+        "meetups.datasource.replica.heartbeat-interval=PT1H",
+        "meetups.search.registration.enabled=false"})
+public class ReplicaRoutingTest {
+
+    @Autowired
+    RegistrationService registrationService;
+
+    @Autowired
+    MeetupService meetupService;
+
+    @Autowired
+    ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replicaDataSource;
+
+    JdbcTemplate primary;
+
+    JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("delete from meetup");
+            database.update("delete from registration");
+        }
+        replica.update("merge into replica_heartbeat key (id) values (1, current_timestamp)");
+        // só na réplica: mostra de onde a leitura veio
+        for (int id = 900; id <= 901; id++) {
+            replica.update("insert into registration (registration_id, registration_name, date_of_registration, registration, version) " +
+                    "values (?, 'Replica', ?, ?, 0)", id, Date.valueOf("2022-04-04"), "REP-" + id);
+        }
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to a replica that is up to date and writes to the primary")
+    public void replicaReadsTest() {
+
+        // cenario
+        replicate(Duration.ZERO);
+
+        // execução
+        Registration saved = registrationService.save(Registration.builder()
+                .name("Paula")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration("PRI-001")
+                .build());
+
+        // assert: a escrita ficou só no primário, as listagens e contagens vêm da réplica
+        assertThat(primary.queryForObject("select count(*) from registration", Long.class)).isEqualTo(1);
+        assertThat(registrationService.count()).isEqualTo(2);
+        assertThat(registrationService.find(new Registration(), PageRequest.of(0, 10)).getContent())
+                .extracting(Registration::getRegistration).containsExactly("REP-900", "REP-901");
+        assertThat(meetupService.count()).isZero();
+        // a busca por chave enche o cache, então continua no primário
+        assertThat(registrationService.getRegistrationByID(saved.getId())).isPresent();
+        assertThat(registrationService.getRegistrationByID(900)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary while the replica lags behind the maximum")
+    public void laggingReplicaTest() {
+
+        // cenario
+        replicate(Duration.ofMinutes(1));
+
+        // execução
+        long count = registrationService.count();
+
+        // assert
+        assertThat(lagMonitor.isUsable()).isFalse();
+        assertThat(lagMonitor.getLag()).isGreaterThan(Duration.ofSeconds(59));
+        assertThat(count).isZero();
+        assertThat(registrationService.find(new Registration(), PageRequest.of(0, 10)).getContent()).isEmpty();
+
+        // e volta para a réplica quando ela alcança o primário
+        replicate(Duration.ZERO);
+        assertThat(registrationService.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary when the replica is unavailable")
+    public void unavailableReplicaTest() {
+
+        // cenario
+        replica.update("delete from replica_heartbeat");
+
+        // execução
+        lagMonitor.heartbeat();
+
+        // assert
+        assertThat(lagMonitor.isUsable()).isFalse();
+        assertThat(lagMonitor.getLag()).isNull();
+        assertThat(registrationService.count()).isZero();
+    }
+
+    // grava o heartbeat e copia para a réplica o valor do primário, atrasado de lag
+    private void replicate(Duration lag) {
+        lagMonitor.heartbeat();
+        Timestamp beat = primary.queryForObject("select beat_at from replica_heartbeat where id = 1", Timestamp.class);
+        replica.update("update replica_heartbeat set beat_at = ? where id = 1",
+                Timestamp.from(beat.toInstant().minus(lag)));
+        // o primário ganha um heartbeat novo, a réplica fica com a cópia: o atraso lido é lag mais alguns ms
+        lagMonitor.heartbeat();
+    }
+}
@@ -0,0 +1,76 @@
+package com.bibs.meetups.config;
+
+import com.bibs.meetups.config.replica.ReplicaLagMonitor;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.service.RegistrationService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// a busca pelo índice em memória com réplica: dois H2 em memória, e a "replicação" do heartbeat feita à mão
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:search-primary;DB_CLOSE_DELAY=-1",
+        "meetups.datasource.replica.url=jdbc:h2:mem:search-replica;DB_CLOSE_DELAY=-1",
+        "meetups.datasource.replica.migrate=true",
+        "meetups.datasource.replica.max-lag=5s",
+        "meetups.datasource.replica.heartbeat-interval=PT1H"})
+public class ReplicaSearchTest {
+
+    @Autowired
+    RegistrationService registrationService;
+
+    @Autowired
+    ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replicaDataSource;
+
+    @BeforeEach
+    public void setUp() {
+        // a réplica está em dia, mas ainda não recebeu o commit que o teste faz no primário
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        lagMonitor.heartbeat();
+        Timestamp beat = primary.queryForObject("select beat_at from replica_heartbeat where id = 1", Timestamp.class);
+        new JdbcTemplate(replicaDataSource).update("merge into replica_heartbeat key (id) values (1, ?)", beat);
+        lagMonitor.heartbeat();
+    }
+
+    @Test
+    @DisplayName("Should keep a registration the replica does not have yet in the search index")
+    public void searchRecentRegistrationTest() {
+
+        // cenario
+        Registration saved = registrationService.save(Registration.builder()
+                .name("Paula Recente")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration("SRC-001")
+                .build());
+        Registration filter = Registration.builder().name("recente").build();
+
+        // execução
+        Page<Registration> first = registrationService.find(filter, PageRequest.of(0, 10));
+        Page<Registration> second = registrationService.find(filter, PageRequest.of(0, 10));
+
+        // assert: as linhas da busca vêm do primário, então o índice não descarta o registration recente
+        assertThat(lagMonitor.isUsable()).isTrue();
+        assertThat(first.getContent()).extracting(Registration::getId).containsExactly(saved.getId());
+        assertThat(second.getTotalElements()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.bibs.meetups.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestExecutorTest {
+
+    @Test
+    @DisplayName("Should run the work on the request thread in platform mode")
+    public void platformModeTest() {
+
+        RequestExecutor executor = new RequestExecutor(ExecutionMode.PLATFORM, 1, 1);
+
+        Object result = executor.supply(() -> Thread.currentThread().getName());
+
+        // o resultado vem puro, sem CompletableFuture, para o Spring MVC não abrir um dispatch assíncrono
+        assertThat(result).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    @DisplayName("Should run the work on the database executor in async mode")
+    public void asyncModeTest() throws Exception {
+
+        RequestExecutor executor = new RequestExecutor(ExecutionMode.ASYNC, 1, 1);
+        try {
+            Object result = executor.supply(() -> Thread.currentThread().getName());
+
+            assertThat(result).isInstanceOf(CompletableFuture.class);
+            Object thread = ((CompletableFuture<?>) result).get(5, TimeUnit.SECONDS);
+
+            assertThat(thread).asString().startsWith("db-");
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject with service unavailable when the database executor is saturated")
+    public void saturatedAsyncModeTest() {
+
+        // cenario: 1 thread ocupada e a fila de 1 cheia
+        RequestExecutor executor = new RequestExecutor(ExecutionMode.ASYNC, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.supply(() -> await(release));
+            executor.supply(() -> await(release));
+
+            // execução
+            Throwable exception = Assertions.catchThrowable(() -> executor.supply(() -> "third"));
+
+            // assert
+            assertThat(exception).isInstanceOf(ResponseStatusException.class);
+            assertThat(((ResponseStatusException) exception).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            release.countDown();
+            executor.destroy();
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,135 @@
+package com.bibs.meetups.config.ratelimit;
+
+import com.bibs.meetups.config.HttpCachePolicy;
+import com.bibs.meetups.config.RequestExecutor;
+import com.bibs.meetups.controller.resource.RegistrationController;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.service.RegistrationService;
+import com.bibs.meetups.service.export.ExportService;
+import com.bibs.meetups.service.idempotency.IdempotentRequests;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles("test")
+@WebMvcTest(controllers = {RegistrationController.class}, properties = {
+        "meetups.rate-limit.registration-create.permits-per-second=0.01",
+        "meetups.rate-limit.registration-create.burst=2",
+        "meetups.rate-limit.api-keys=client-a, client-b"})
+@AutoConfigureMockMvc
+@Import({RequestExecutor.class, HttpCachePolicy.class, IdempotentRequests.class, RateLimitConfig.class})
+public class RateLimitInterceptorTest {
+
+    static String REGISTRATION_API = "/api/registration";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    RegistrationService registrationService;
+
+    @MockBean
+    ExportService exportService;
+
+    // o slice não tem MeterRegistry: os contadores do limitador vão para o registro global
+    static SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeAll
+    public static void addRegistry() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterAll
+    public static void removeRegistry() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    @DisplayName("Should answer too many requests once a client spends its burst, without touching other clients")
+    public void rateLimitPerClientTest() throws Exception {
+
+        // cenario
+        BDDMockito.given(registrationService.save(any(Registration.class))).willReturn(Registration.builder()
+                .id(101).name("Ana Neri").dateOfRegistration(LocalDate.of(2021, 10, 10)).registration("001").build());
+        double rejectedBefore = rejections();
+
+        // execução / assert
+        mockMvc.perform(create("client-a")).andExpect(status().isCreated());
+        mockMvc.perform(create("client-a")).andExpect(status().isCreated());
+        mockMvc.perform(create("client-a"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("errors[0]").value("Too many requests"));
+        mockMvc.perform(create("client-b")).andExpect(status().isCreated());
+        mockMvc.perform(MockMvcRequestBuilders.get(REGISTRATION_API + "/101")).andExpect(status().isNotFound());
+
+        BDDMockito.verify(registrationService, BDDMockito.times(3)).save(any(Registration.class));
+        Counter rejections = registry.find("meetups.rate.limit.rejections")
+                .tags("endpoint", "registration-create", "reason", "rate").counter();
+        assertThat(rejections).isNotNull();
+        assertThat(rejections.count() - rejectedBefore).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep counting unknown API keys by address, so rotating keys does not reset the limit")
+    public void rotatingUnknownKeysTest() throws Exception {
+
+        // cenario
+        BDDMockito.given(registrationService.save(any(Registration.class))).willReturn(Registration.builder()
+                .id(101).name("Ana Neri").dateOfRegistration(LocalDate.of(2021, 10, 10)).registration("001").build());
+
+        // execução / assert: uma key nova por requisição, todas do mesmo endereço
+        mockMvc.perform(create("rotated-1").with(from("10.0.0.7"))).andExpect(status().isCreated());
+        mockMvc.perform(create("rotated-2").with(from("10.0.0.7"))).andExpect(status().isCreated());
+        mockMvc.perform(create("rotated-3").with(from("10.0.0.7")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(create("rotated-4").with(from("10.0.0.8"))).andExpect(status().isCreated());
+
+        BDDMockito.verify(registrationService, BDDMockito.times(3)).save(any(Registration.class));
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    private static double rejections() {
+        Counter rejections = registry.find("meetups.rate.limit.rejections")
+                .tags("endpoint", "registration-create", "reason", "rate").counter();
+        return rejections == null ? 0 : rejections.count();
+    }
+
+    private static MockHttpServletRequestBuilder create(String apiKey) {
+        return MockMvcRequestBuilders.post(REGISTRATION_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("X-API-Key", apiKey)
+                .content("{\"name\":\"Ana Neri\",\"dateOfRegistration\":\"10/10/2021\",\"registration\":\"001\"}");
+    }
+}
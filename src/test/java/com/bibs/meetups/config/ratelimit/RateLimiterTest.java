@@ -0,0 +1,127 @@
+package com.bibs.meetups.config.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+
+    static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Should allow the burst, then one permit per interval")
+    public void tokenBucketTest() {
+
+        // cenario: 2 por segundo, rajada de 3
+        TokenBucket bucket = new TokenBucket(2, 3);
+        long now = 0;
+
+        // execução / assert
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryAcquire(now + SECOND / 2)).isZero();
+        assertThat(bucket.tryAcquire(now + SECOND / 2)).isPositive();
+        assertThat(bucket.tryAcquire(now + 10 * SECOND)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should never hand out more permits than the burst under concurrent access")
+    public void concurrentTokenBucketTest() throws Exception {
+
+        // cenario
+        TokenBucket bucket = new TokenBucket(0.001, 100);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // execução
+        for (int i = 0; i < 16; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 100; j++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // assert
+        assertThat(granted.get()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should reject requests above the concurrency limit")
+    public void concurrencyLimitTest() {
+
+        // cenario
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, 2.0);
+
+        // execução / assert
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.release(1_000_000, false);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should lower the limit when latency grows or requests fail and raise it while latency stays low")
+    public void adaptiveLimitTest() {
+
+        // cenario
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 20, 2.0);
+
+        // execução: latência estável com o limite em uso
+        for (int i = 0; i < 200; i++) {
+            fill(limiter);
+            drain(limiter, 1_000_000);
+        }
+        int raised = limiter.getLimit();
+
+        // execução: a latência passa do dobro da mínima
+        for (int i = 0; i < 5; i++) {
+            fill(limiter);
+            drain(limiter, 10_000_000);
+        }
+        int lowered = limiter.getLimit();
+
+        // execução: falhas derrubam até o mínimo
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(1_000_000, true);
+        }
+
+        // assert
+        assertThat(raised).isGreaterThan(10).isLessThanOrEqualTo(20);
+        assertThat(lowered).isLessThan(raised);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    private static void fill(ConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+            // ocupa todo o limite
+        }
+    }
+
+    private static void drain(ConcurrencyLimiter limiter, long rttNanos) {
+        while (limiter.getInFlight() > 0) {
+            limiter.release(rttNanos, false);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.bibs.meetups.controller;
 
 
+import com.bibs.meetups.config.HttpCachePolicy;
+import com.bibs.meetups.config.RequestExecutor;
+import com.bibs.meetups.controller.dto.MeetupCapacityDTO;
 import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.controller.dto.MeetupFilterDTO;
 import com.bibs.meetups.controller.resource.MeetupController;
 import com.bibs.meetups.exception.BusinessException;
 import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.MeetupCapacity;
 import com.bibs.meetups.model.entity.Registration;
 import com.bibs.meetups.service.MeetupService;
 import com.bibs.meetups.service.RegistrationService;
+import com.bibs.meetups.service.export.ExportService;
+import com.bibs.meetups.service.idempotency.IdempotentRequests;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +24,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -25,14 +37,17 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
-
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = {MeetupController.class})
 @AutoConfigureMockMvc
+@Import({RequestExecutor.class, HttpCachePolicy.class, IdempotentRequests.class})
 
 public class MeetupControllerTest {
 
@@ -47,12 +62,16 @@ public class MeetupControllerTest {
     @MockBean
     private MeetupService meetupService;
 
+    @MockBean
+    private ExportService exportService;
+
     @Test
     @DisplayName("Should register on a meetup")
     public void createMeetupTest() throws Exception {
 
         // quando enviar uma requisicao pra esse registration precisa ser encontrado um valor que tem esse usuario
-        MeetupDTO dto = MeetupDTO.builder().registrationAttribute("123").event("Womakerscode Dados").build();
+        MeetupDTO dto = MeetupDTO.builder().registrationAttribute("123").event("Womakerscode Dados")
+                .meetupDate("10/10/2021").build();
         String json = new ObjectMapper().writeValueAsString(dto);
 
         Registration registration = Registration.builder().id(11).registration("123").build();
@@ -60,7 +79,7 @@ public class MeetupControllerTest {
         BDDMockito.given(registrationService.getRegistrationByRegistrationAtr("123")).
                 willReturn(Optional.of(registration));
 
-        Meetup meetup = Meetup.builder().id(11).event("Womakerscode Dados").registration(registration).meetupDate("10/10/2021").build();
+        Meetup meetup = Meetup.builder().id(11).event("Womakerscode Dados").registration(registration).meetupDate(LocalDate.of(2021, 10, 10)).build();
 
         BDDMockito.given(meetupService.save(Mockito.any(Meetup.class))).willReturn(meetup);
 
@@ -74,9 +93,63 @@ public class MeetupControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(content().string("11"));
 
+        // a data vem do corpo, já convertida para a coluna DATE
+        Mockito.verify(meetupService).save(Mockito.argThat(saved ->
+                LocalDate.of(2021, 10, 10).equals(saved.getMeetupDate())));
+
     }
 
 
+    @Test
+    @DisplayName("Should answer a retry with the same Idempotency-Key without looking up or saving again")
+    public void idempotentCreateMeetupTest() throws Exception {
+
+        MeetupDTO dto = MeetupDTO.builder().registrationAttribute("123").event("Womakerscode Dados").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        Registration registration = Registration.builder().id(11).registration("123").build();
+        BDDMockito.given(registrationService.getRegistrationByRegistrationAtr("123"))
+                .willReturn(Optional.of(registration));
+        BDDMockito.given(meetupService.save(Mockito.any(Meetup.class)))
+                .willReturn(Meetup.builder().id(11).event("Womakerscode Dados").registration(registration).build());
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.post(MEETUP_API)
+                            .header(IdempotentRequests.HEADER, "9b2d7f4e-meetup")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpect(status().isCreated())
+                    .andExpect(content().string("11"));
+        }
+
+        Mockito.verify(registrationService, Mockito.times(1)).getRegistrationByRegistrationAtr("123");
+        Mockito.verify(meetupService, Mockito.times(1)).save(Mockito.any(Meetup.class));
+    }
+
+    @Test
+    @DisplayName("Should return error when the meetup date is not a valid dd/MM/yyyy date")
+    public void invalidDateCreateMeetupTest() throws Exception {
+
+        MeetupDTO dto = MeetupDTO.builder().registrationAttribute("123").event("Womakerscode Dados")
+                .meetupDate("31/02/2021").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        BDDMockito.given(registrationService.getRegistrationByRegistrationAtr("123"))
+                .willReturn(Optional.of(Registration.builder().id(11).registration("123").build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(MEETUP_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid date, expected dd/MM/yyyy"));
+
+        Mockito.verify(meetupService, Mockito.never()).save(Mockito.any());
+    }
+
     @Test
     @DisplayName("Should return error when try to register an a meetup nonexistent")
     public void invalidRegistrationCreateMeetupTest() throws Exception {
@@ -125,4 +198,156 @@ public class MeetupControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @DisplayName("Should find meetups by event")
+    public void findMeetupsTest() throws Exception {
+
+        MeetupDTO meetup = MeetupDTO.builder().id(11).registrationAttribute("123").event("Womakerscode Dados").build();
+        BDDMockito.given(meetupService.findSummaries(Mockito.any(), Mockito.any()))
+                .willReturn(new PageImpl<>(List.of(meetup), PageRequest.of(0, 10), 1));
+
+        // fora do modo async a listagem responde na própria requisição, sem dispatch assíncrono
+        mockMvc.perform(MockMvcRequestBuilders.get(MEETUP_API + "?event=Womakerscode Dados&page=0&size=10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=10, private"))
+                .andExpect(jsonPath("content[0].id").value(11))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Should find meetups in a date range")
+    public void findMeetupsByDateRangeTest() throws Exception {
+
+        MeetupDTO meetup = MeetupDTO.builder().id(11).event("Womakerscode Dados").meetupDate("06/10/2021").build();
+        BDDMockito.given(meetupService.findSummaries(Mockito.any(), Mockito.any()))
+                .willReturn(new PageImpl<>(List.of(meetup), PageRequest.of(0, 10), 1));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(MEETUP_API + "?from=04/10/2021&to=10/10/2021")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content[0].meetupDate").value("06/10/2021"));
+
+        Mockito.verify(meetupService).findSummaries(Mockito.argThat(filter ->
+                LocalDate.of(2021, 10, 4).equals(filter.getFrom()) && LocalDate.of(2021, 10, 10).equals(filter.getTo())),
+                Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should get a meetup with an ETag from the meetup and registration versions")
+    public void getMeetupTest() throws Exception {
+
+        Registration registration = Registration.builder().id(11).registration("123").version(2).build();
+        Meetup meetup = Meetup.builder().id(7).event("Womakerscode Dados").registration(registration).version(5).build();
+        BDDMockito.given(meetupService.getById(7)).willReturn(Optional.of(meetup));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(MEETUP_API + "/7").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5-2\""))
+                .andExpect(jsonPath("event").value("Womakerscode Dados"))
+                .andExpect(jsonPath("registrationAttribute").value("123"));
+
+        // nada mudou desde a última leitura
+        mockMvc.perform(MockMvcRequestBuilders.get(MEETUP_API + "/7")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"5-2\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should return not found when the meetup does not exist")
+    public void meetupNotFoundTest() throws Exception {
+
+        BDDMockito.given(meetupService.getById(7)).willReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(MEETUP_API + "/7").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should set the capacity of a meetup")
+    public void setCapacityTest() throws Exception {
+
+        MeetupCapacityDTO dto = MeetupCapacityDTO.builder().event("Womakerscode Dados").capacity(100).build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        BDDMockito.given(meetupService.setCapacity("Womakerscode Dados", 100))
+                .willReturn(MeetupCapacity.builder().event("Womakerscode Dados").capacity(100).reserved(3).build());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.put(MEETUP_API + "/capacity")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("capacity").value(100))
+                .andExpect(jsonPath("reserved").value(3));
+    }
+
+    @Test
+    @DisplayName("Should return the number of registrations of an event")
+    public void attendanceTest() throws Exception {
+
+        BDDMockito.given(meetupService.countRegistrations("Womakerscode Dados")).willReturn(42L);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(MEETUP_API + "/attendance")
+                .param("event", "Womakerscode Dados")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("event").value("Womakerscode Dados"))
+                .andExpect(jsonPath("count").value(42))
+                .andExpect(jsonPath("registrationId").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should return error when the meetup is full")
+    public void fullMeetupOnCreateMeetupTest() throws Exception {
+
+        MeetupDTO dto = MeetupDTO.builder().registrationAttribute("123").event("Womakerscode Dados").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        BDDMockito.given(registrationService.getRegistrationByRegistrationAtr("123"))
+                .willReturn(Optional.of(Registration.builder().id(11).registration("123").build()));
+        BDDMockito.given(meetupService.save(Mockito.any(Meetup.class))).willThrow(new BusinessException("Meetup is full"));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(MEETUP_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Meetup is full"));
+    }
+
+    @Test
+    @DisplayName("Should apply the listing filters in cursor mode and count only the filtered meetups")
+    public void findMeetupsByCursorWithFilterTest() throws Exception {
+
+        // cenario
+        Registration registration = Registration.builder().id(11).name("Paula").registration("123").build();
+        Meetup meetup = Meetup.builder().id(7).event("Womakerscode Dados").registration(registration)
+                .meetupDate(LocalDate.of(2022, 5, 2)).build();
+        BDDMockito.given(meetupService.findAfter(Mockito.argThat(filter -> filter != null
+                        && "Womakerscode Dados".equals(filter.getEvent())), Mockito.isNull(), Mockito.eq(20)))
+                .willReturn(new SliceImpl<>(List.of(meetup), PageRequest.of(0, 20), false));
+        BDDMockito.given(meetupService.count(Mockito.any(MeetupFilterDTO.class))).willReturn(1L);
+
+        // execução e assert
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(MEETUP_API + "?event=Womakerscode Dados&after=&count=true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("next").doesNotExist())
+                .andExpect(jsonPath("totalElements").value(1));
+
+        Mockito.verify(meetupService).count(Mockito.argThat((MeetupFilterDTO filter) -> "Womakerscode Dados".equals(filter.getEvent())));
+        Mockito.verify(meetupService, Mockito.never()).count();
+    }
 }
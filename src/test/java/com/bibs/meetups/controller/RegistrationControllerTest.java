@@ -1,37 +1,68 @@
 package com.bibs.meetups.controller;
 
+import com.bibs.meetups.config.HttpCachePolicy;
+import com.bibs.meetups.config.RequestExecutor;
+import com.bibs.meetups.controller.dto.RegistrationBatchResultDTO;
+import com.bibs.meetups.controller.mapper.DateMapper;
 import com.bibs.meetups.controller.resource.RegistrationController;
 import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
 import com.bibs.meetups.model.entity.Registration;
 import com.bibs.meetups.controller.dto.RegistrationDTO;
 import com.bibs.meetups.service.RegistrationService;
+import com.bibs.meetups.service.export.ExportFormat;
+import com.bibs.meetups.service.export.ExportService;
+import com.bibs.meetups.service.idempotency.IdempotentRequests;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class) // precisa dessa classe para teste
 @ActiveProfiles("test")
 @WebMvcTest(controllers = {RegistrationController.class})
 @AutoConfigureMockMvc
+@Import({RequestExecutor.class, HttpCachePolicy.class, IdempotentRequests.class})
 public class RegistrationControllerTest {
 
     static String REGISTRATION_API = "/api/registration";
@@ -42,6 +73,9 @@ public class RegistrationControllerTest {
     @MockBean
     RegistrationService registrationService;
 
+    @MockBean
+    ExportService exportService;
+
     @Test
     @DisplayName("Should create a registration")
     public void createRegistrationTest() throws Exception {
@@ -52,7 +86,7 @@ public class RegistrationControllerTest {
         Registration savedRegistration = Registration.builder()
                                             .id(101)
                                             .name("Paula")
-                                            .dateOfRegistration("04/04/2022")
+                                            .dateOfRegistration(LocalDate.of(2022, 4, 4))
                                             .registration("001")
                                             .build();
 
@@ -79,6 +113,35 @@ public class RegistrationControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should answer a retry with the same Idempotency-Key with the registration created the first time")
+    public void idempotentCreateRegistrationTest() throws Exception {
+
+        // cenario
+        BDDMockito.given(registrationService.save(any(Registration.class))).willReturn(Registration.builder()
+                .id(101)
+                .name("Paula")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration("001")
+                .build());
+
+        String json = new ObjectMapper().writeValueAsString(createNewRegistration());
+
+        // execução: a mesma requisição duas vezes, como um cliente repetindo depois de um timeout
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.post(REGISTRATION_API)
+                            .header(IdempotentRequests.HEADER, "3f6c1e0a-registration")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("id").value(101));
+        }
+
+        // assert
+        Mockito.verify(registrationService, Mockito.times(1)).save(any(Registration.class));
+    }
+
     @Test
     @DisplayName("Should throw an Exception when there is missing data")
     public void createInvalidRegistrationTest() throws Exception {
@@ -104,7 +167,7 @@ public class RegistrationControllerTest {
         Registration registration = Registration.builder()
                 .id(id)
                 .name(createNewRegistration().getName())
-                .dateOfRegistration(createNewRegistration().getDateOfRegistration())
+                .dateOfRegistration(DateMapper.parse(createNewRegistration().getDateOfRegistration()))
                 .registration(createNewRegistration().getRegistration())
                 .build();
 
@@ -123,6 +186,56 @@ public class RegistrationControllerTest {
                 .andExpect(jsonPath("registration").value(createNewRegistration().getRegistration()));
     }
 
+    @Test
+    @DisplayName("Should return the registration version as ETag")
+    public void getRegistrationETagTest() throws Exception {
+
+        // cenario
+        Registration registration = Registration.builder().id(101).name("Paula").registration("001").version(3).build();
+        BDDMockito.given(registrationService.getRegistrationByID(101)).willReturn(Optional.of(registration));
+
+        // execução
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(REGISTRATION_API.concat("/101"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // assert
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("name").value("Paula"));
+    }
+
+    @Test
+    @DisplayName("Should return not modified when the ETag matches the registration version")
+    public void getRegistrationNotModifiedTest() throws Exception {
+
+        // cenario
+        Registration registration = Registration.builder().id(101).name("Paula").registration("001").version(3).build();
+        BDDMockito.given(registrationService.getRegistrationByID(101)).willReturn(Optional.of(registration));
+
+        // execução
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(REGISTRATION_API.concat("/101"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        // assert: sem corpo
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        // uma versão antiga recebe a representação nova
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(REGISTRATION_API.concat("/101"))
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name").value("Paula"));
+    }
+
     @Test
     @DisplayName("Should throw an Exception when creates a duplicated registration")
     public void createDuplicatedRegistrationTest() throws Exception {
@@ -165,6 +278,23 @@ public class RegistrationControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should return the number of meetups of a registration")
+    public void attendanceTest() throws Exception {
+
+        BDDMockito.given(registrationService.countMeetups(11)).willReturn(3L);
+
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(REGISTRATION_API.concat("/11/attendance"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("registrationId").value(11))
+                .andExpect(jsonPath("count").value(3))
+                .andExpect(jsonPath("event").doesNotExist());
+    }
+
     @Test
     @DisplayName("Should delete registration")
     public void deleteRegistrationTest() throws Exception {
@@ -181,6 +311,22 @@ public class RegistrationControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should return conflict when the registration to delete still has meetups")
+    public void deleteRegistrationWithMeetupsTest() throws Exception {
+
+        BDDMockito.given(registrationService
+                .getRegistrationByID(anyInt())).willReturn(Optional.of(Registration.builder().id(11).build()));
+        Mockito.doThrow(new ConflictException("Registration has meetups"))
+                .when(registrationService).delete(Mockito.any(Registration.class));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .delete(REGISTRATION_API.concat("/" + 11))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("errors[0]").value("Registration has meetups"));
+    }
+
     @Test
     @DisplayName("Should return error when the user tries to delete a nonexistent registration")
     public void deleteNonExistentRegistrationTest() throws Exception {
@@ -204,43 +350,329 @@ public class RegistrationControllerTest {
         Integer id = 11;
         String json = new ObjectMapper().writeValueAsString(createNewRegistration());
 
-        Registration updatingRegistration =
-                Registration.builder()
-                        .id(id)
-                        .name("Amanda")
-                        .dateOfRegistration("04/04/2022")
-                        .registration("323")
-                        .build();
-
-        BDDMockito.given(registrationService.getRegistrationByID(anyInt()))
-                .willReturn(Optional.of(updatingRegistration));
+        BDDMockito.given(registrationService.update(id, null,
+                        createNewRegistration().getName(), DateMapper.parse(createNewRegistration().getDateOfRegistration())))
+                .willReturn(true);
 
         Registration updatedRegistration =
                 Registration.builder()
                         .id(id)
-                        .name("Paula")
-                        .dateOfRegistration("04/04/2022")
+                        .name(createNewRegistration().getName())
+                        .dateOfRegistration(DateMapper.parse(createNewRegistration().getDateOfRegistration()))
                         .registration("323")
+                        .version(1)
                         .build();
 
-        BDDMockito.given(registrationService
-                        .update(updatingRegistration))
-                .willReturn(updatedRegistration);
+        BDDMockito.given(registrationService.getRegistrationByID(id))
+                .willReturn(Optional.of(updatedRegistration));
 
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
-                .put(REGISTRATION_API.concat("/" + 1))
-                .contentType(json)
+                .put(REGISTRATION_API.concat("/" + id))
+                .content(json)
                 .accept(MediaType.APPLICATION_JSON)
                 .contentType(MediaType.APPLICATION_JSON);
 
         mockMvc.perform(requestBuilder)
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("name").value(createNewRegistration().getName()))
                 .andExpect(jsonPath("dateOfRegistration").value(createNewRegistration().getDateOfRegistration()))
                 .andExpect(jsonPath("registration").value("323"));
 
 
+    }
+
+    @Test
+    @DisplayName("Should return conflict when updating from a stale version")
+    public void updateRegistrationConflictTest() throws Exception {
+
+        // cenario
+        String json = new ObjectMapper().writeValueAsString(createNewRegistration());
+        BDDMockito.given(registrationService.update(eq(11), eq(3), any(), any()))
+                .willThrow(new ConflictException("Registration was modified by another request"));
+
+        // execução
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .put(REGISTRATION_API.concat("/11"))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(json)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // assert
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("errors[0]").value("Registration was modified by another request"));
+    }
+
+    @Test
+    @DisplayName("Should patch only the sent fields and return the next ETag")
+    public void patchRegistrationTest() throws Exception {
+
+        // cenario: só o nome
+        BDDMockito.given(registrationService.patch(11, 3, "Paula", null)).willReturn(true);
+
+        // execução
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .patch(REGISTRATION_API.concat("/11"))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content("{\"name\":\"Paula\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // assert: nenhuma leitura do registro
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        Mockito.verify(registrationService, Mockito.never()).getRegistrationByID(anyInt());
+    }
+
+    @Test
+    @DisplayName("Should return not found when patching a nonexistent registration")
+    public void patchRegistrationNotFoundTest() throws Exception {
+
+        BDDMockito.given(registrationService.patch(eq(11), isNull(), any(), any())).willReturn(false);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch(REGISTRATION_API.concat("/11"))
+                        .content("{\"name\":\"Paula\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should create registrations in batch from a JSON array")
+    public void createBatchFromJsonArrayTest() throws Exception {
+
+        // cenario: uma linha válida e uma sem os campos obrigatórios
+        String json = new ObjectMapper().writeValueAsString(List.of(createNewRegistration(), new RegistrationDTO()));
+
+        BDDMockito.given(registrationService.saveAll(anyList()))
+                .willReturn(List.of(RegistrationBatchResultDTO.builder()
+                        .id(101)
+                        .registration("001")
+                        .status(RegistrationBatchResultDTO.Status.CREATED)
+                        .build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(REGISTRATION_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].id").value(101))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].errors", hasSize(3)));
+
+    }
+
+    @Test
+    @DisplayName("Should create registrations in batch from NDJSON")
+    public void createBatchFromNdjsonTest() throws Exception {
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        RegistrationDTO second = createNewRegistration();
+        second.setRegistration("002");
+        String ndjson = objectMapper.writeValueAsString(createNewRegistration()) + "\n"
+                + objectMapper.writeValueAsString(second) + "\n";
+
+        BDDMockito.given(registrationService.saveAll(anyList()))
+                .willReturn(List.of(
+                        RegistrationBatchResultDTO.builder().id(101).registration("001")
+                                .status(RegistrationBatchResultDTO.Status.CREATED).build(),
+                        RegistrationBatchResultDTO.builder().registration("002")
+                                .status(RegistrationBatchResultDTO.Status.DUPLICATED)
+                                .errors(List.of("Registration already created")).build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(REGISTRATION_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(ndjson);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("DUPLICATED"));
+
+    }
+
+    @Test
+    @DisplayName("Should look up many registrations by id and by registration in a single call")
+    public void lookupTest() throws Exception {
+
+        // cenario: o id 3 e a registration "404" não existem
+        Registration first = Registration.builder().id(1).name("Paula").registration("001").build();
+        Registration second = Registration.builder().id(2).name("Amanda").registration("002").build();
+        BDDMockito.given(registrationService.getRegistrationsByIds(anyCollection()))
+                .willReturn(Map.of(1, first, 2, second));
+        BDDMockito.given(registrationService.getRegistrationsByRegistrationAtrs(anyCollection()))
+                .willReturn(Map.of("002", second));
+
+        String json = "{\"ids\": [2, 3, 1], \"registrations\": [\"002\", \"404\"]}";
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(REGISTRATION_API.concat("/lookup"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("ids.2.name").value("Amanda"))
+                .andExpect(jsonPath("ids.1.name").value("Paula"))
+                .andExpect(jsonPath("ids.3").doesNotExist())
+                .andExpect(jsonPath("registrations.002.id").value(2))
+                .andExpect(jsonPath("registrations.404").doesNotExist())
+                .andReturn();
+
+        // a resposta segue a ordem pedida
+        assertThat(result.getResponse().getContentAsString()).matches(".*\"ids\":\\{\"2\".*\"1\".*");
+    }
+
+    @Test
+    @DisplayName("Should reject a lookup with more than 1000 ids")
+    public void lookupTooManyIdsTest() throws Exception {
+
+        String json = new ObjectMapper().writeValueAsString(Map.of("ids",
+                IntStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList())));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(REGISTRATION_API.concat("/lookup"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("At most 1000 ids per lookup"));
+
+        Mockito.verify(registrationService, Mockito.never()).getRegistrationsByIds(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should page registrations by cursor without counting them")
+    public void findRegistrationsByCursorTest() throws Exception {
+
+        // cenario: primeira página com mais registros depois dela
+        Registration first = Registration.builder().id(101).name("Paula").registration("001").build();
+        Registration second = Registration.builder().id(102).name("Amanda").registration("002").build();
+        BDDMockito.given(registrationService.findAfter(any(Registration.class), isNull(), eq(2)))
+                .willReturn(new SliceImpl<>(List.of(first, second), PageRequest.of(0, 2), true));
+
+        MvcResult firstPage = mockMvc.perform(MockMvcRequestBuilders
+                        .get(REGISTRATION_API.concat("?after=&size=2"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(2)))
+                .andExpect(jsonPath("next").isNotEmpty())
+                .andExpect(jsonPath("totalElements").doesNotExist())
+                .andReturn();
+
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.next");
+
+        // a próxima página continua depois do último id entregue
+        BDDMockito.given(registrationService.findAfter(any(Registration.class), eq(102), eq(2)))
+                .willReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 2), false));
+        BDDMockito.given(registrationService.count(any(Registration.class))).willReturn(2L);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(REGISTRATION_API.concat("?size=2&count=true&after=" + next))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(0)))
+                .andExpect(jsonPath("next").doesNotExist())
+                .andExpect(jsonPath("totalElements").value(2));
+    }
+
+    @Test
+    @DisplayName("Should apply the listing filters in cursor mode and count only the filtered registrations")
+    public void findRegistrationsByCursorWithFilterTest() throws Exception {
+
+        // cenario
+        Registration paula = Registration.builder().id(101).name("Paula").registration("001").build();
+        BDDMockito.given(registrationService.findAfter(argThat(filter -> filter != null && "Paula".equals(filter.getName())), isNull(), eq(20)))
+                .willReturn(new SliceImpl<>(List.of(paula), PageRequest.of(0, 20), false));
+        BDDMockito.given(registrationService.count(argThat(filter -> filter != null && "Paula".equals(filter.getName())))).willReturn(1L);
+
+        // execução e assert
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(REGISTRATION_API.concat("?name=Paula&after=&count=true"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("totalElements").value(1));
+
+        Mockito.verify(registrationService, Mockito.never()).count();
+    }
+
+    @Test
+    @DisplayName("Should find registrations by filter")
+    public void findRegistrationsTest() throws Exception {
+
+        // cenario
+        Registration registration = Registration.builder().id(101).name("Paula").registration("001").build();
+        BDDMockito.given(registrationService.find(any(Registration.class), any(PageRequest.class)))
+                .willReturn(new PageImpl<>(List.of(registration), PageRequest.of(0, 10), 1));
+
+        // execução: fora do modo async a listagem responde na própria requisição
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(REGISTRATION_API.concat("?name=Paula&page=0&size=10"))
+                        .accept(MediaType.APPLICATION_JSON))
+                // assert
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=10, private"))
+                .andExpect(jsonPath("content[0].name").value("Paula"))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Should stream the registrations export as CSV")
+    public void exportRegistrationsTest() throws Exception {
+
+        // cenario: o serviço escreve direto na resposta
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("id,name,dateOfRegistration,registration\n101,Paula,04/04/2022,001\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportRegistrations(eq(ExportFormat.CSV), any(OutputStream.class));
+
+        // execução e assert
+        mockMvc.perform(MockMvcRequestBuilders.get(REGISTRATION_API.concat("/export?format=csv")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"registrations.csv\""))
+                .andExpect(content().string(containsString("101,Paula,04/04/2022,001")));
+    }
+
+    @Test
+    @DisplayName("Should return bad request for an unknown export format")
+    public void invalidExportFormatTest() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get(REGISTRATION_API.concat("/export?format=xml")))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(exportService);
+    }
+
+    @Test
+    @DisplayName("Should return bad request for a tampered cursor")
+    public void invalidCursorTest() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(REGISTRATION_API.concat("?after=not-a-cursor"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
     }
 
         private RegistrationDTO createNewRegistration() {
@@ -0,0 +1,56 @@
+package com.bibs.meetups.controller.mapper;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.controller.dto.RegistrationDTO;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.Registration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MapperTest {
+
+    @Test
+    @DisplayName("Should map a registration to its DTO and back")
+    public void registrationRoundTripTest() {
+
+        Registration registration = Registration.builder()
+                .id(101)
+                .name("Paula")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration("001")
+                .build();
+
+        RegistrationDTO dto = RegistrationMapper.toDTO(registration);
+
+        assertThat(dto).isEqualTo(new RegistrationDTO(101, "Paula", "04/04/2022", "001"));
+        assertThat(RegistrationMapper.toEntity(dto)).isEqualTo(registration);
+    }
+
+    @Test
+    @DisplayName("Should map a meetup with its registration embedded")
+    public void meetupToDTOTest() {
+
+        Registration registration = Registration.builder().id(11).name("Ana Neri").registration("123").build();
+        Meetup meetup = Meetup.builder().id(7).event("Womakerscode Dados").registration(registration).build();
+
+        MeetupDTO dto = MeetupMapper.toDTO(meetup);
+
+        assertThat(dto.getId()).isEqualTo(7);
+        assertThat(dto.getEvent()).isEqualTo("Womakerscode Dados");
+        assertThat(dto.getRegistrationAttribute()).isEqualTo("123");
+        assertThat(dto.getRegistration()).isEqualTo(RegistrationMapper.toDTO(registration));
+    }
+
+    @Test
+    @DisplayName("Should map null to null")
+    public void nullMappingTest() {
+
+        assertThat(RegistrationMapper.toDTO(null)).isNull();
+        assertThat(RegistrationMapper.toEntity(null)).isNull();
+        assertThat(MeetupMapper.toDTO(null)).isNull();
+    }
+}
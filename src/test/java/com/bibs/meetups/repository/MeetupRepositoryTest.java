@@ -0,0 +1,207 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.Registration;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class MeetupRepositoryTest {
+
+    static final String EVENT = "Womakerscode Dados";
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    MeetupRepository repository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        // cenario: cada meetup com um registration diferente, o pior caso para o N+1
+        for (int i = 0; i < 30; i++) {
+            Registration registration = entityManager.persist(Registration.builder()
+                    .name("Paula " + i)
+                    .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                    .registration("REG-" + i)
+                    .build());
+            entityManager.persist(Meetup.builder()
+                    .event(EVENT)
+                    .registration(registration)
+                    .meetupDate(LocalDate.of(2021, 10, 1).plusDays(i))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Should load a page of meetup summaries with their registrations in one query plus the count")
+    public void findSummariesQueryCountTest() {
+
+        Page<MeetupDTO> page = repository.findSummariesByFilter(null, EVENT, null, null, PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).hasSize(10);
+        assertThat(page.getTotalElements()).isEqualTo(30);
+        assertThat(page.getContent()).allSatisfy(meetup -> {
+            assertThat(meetup.getRegistration().getName()).startsWith("Paula");
+            assertThat(meetup.getRegistrationAttribute()).isEqualTo(meetup.getRegistration().getRegistration());
+        });
+
+        // select da página + count, sem nenhuma consulta por linha
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should fetch the registration together with the meetup entities")
+    public void findByFilterQueryCountTest() {
+
+        Page<Meetup> page = repository.findByFilter(null, EVENT, null, null, PageRequest.of(0, 10));
+        page.getContent().forEach(meetup -> assertThat(meetup.getRegistration().getName()).startsWith("Paula"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should filter meetups by registration id or event")
+    public void findByFilterTest() {
+
+        Meetup other = entityManager.persist(Meetup.builder()
+                .event("Outro evento")
+                .registration(entityManager.find(Registration.class, firstRegistrationId()))
+                .meetupDate(LocalDate.of(2021, 10, 10))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+
+        Page<Meetup> byRegistration = repository.findByFilter(firstRegistrationId(), null, null, null, PageRequest.of(0, 10));
+        Page<Meetup> byEither = repository.findByFilter(firstRegistrationId(), EVENT, null, null, PageRequest.of(0, 100));
+        Page<Meetup> all = repository.findByFilter(null, null, null, null, PageRequest.of(0, 100));
+
+        assertThat(byRegistration.getTotalElements()).isEqualTo(2);
+        assertThat(byEither.getTotalElements()).isEqualTo(31);
+        assertThat(byEither.getContent()).extracting(Meetup::getId).contains(other.getId());
+        assertThat(all.getTotalElements()).isEqualTo(31);
+    }
+
+    @Test
+    @DisplayName("Should filter meetups by an inclusive date range, combined with the other filters")
+    public void findByDateRangeTest() {
+
+        Page<MeetupDTO> week = repository.findSummariesByFilter(null, null,
+                LocalDate.of(2021, 10, 4), LocalDate.of(2021, 10, 10), PageRequest.of(0, 100));
+        Page<Meetup> fromOnly = repository.findByFilter(null, EVENT,
+                LocalDate.of(2021, 10, 25), null, PageRequest.of(0, 100));
+        Page<Meetup> none = repository.findByFilter(firstRegistrationId(), null,
+                LocalDate.of(2021, 10, 2), null, PageRequest.of(0, 100));
+
+        assertThat(week.getContent()).extracting(MeetupDTO::getMeetupDate)
+                .containsExactlyInAnyOrder("04/10/2021", "05/10/2021", "06/10/2021", "07/10/2021",
+                        "08/10/2021", "09/10/2021", "10/10/2021");
+        assertThat(fromOnly.getContent()).extracting(Meetup::getMeetupDate)
+                .allMatch(date -> !date.isBefore(LocalDate.of(2021, 10, 25)))
+                .hasSize(6);
+        // o primeiro registration tem o meetup de 01/10, fora do intervalo
+        assertThat(none.getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should list meetups without a registration in the pages the count already includes")
+    public void findWithoutRegistrationTest() {
+
+        // cenario: meetup sem registration, que o count (sem join) já conta
+        Meetup orphan = entityManager.persist(Meetup.builder()
+                .event(EVENT)
+                .meetupDate(LocalDate.of(2021, 11, 1))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+
+        // execução
+        Page<Meetup> entities = repository.findByFilter(null, EVENT, null, null, PageRequest.of(0, 100));
+        Page<MeetupDTO> summaries = repository.findSummariesByFilter(null, EVENT, null, null, PageRequest.of(1, 20));
+
+        // assert: a página 2 de 20 não é a última só pelo tamanho, então o total vem do count
+        assertThat(entities.getContent()).hasSize(31).extracting(Meetup::getId).contains(orphan.getId());
+        assertThat(summaries.getContent()).hasSize(11);
+        assertThat(summaries.getTotalElements()).isEqualTo(31);
+        assertThat(summaries.getContent()).filteredOn(meetup -> orphan.getId().equals(meetup.getId()))
+                .singleElement()
+                .satisfies(meetup -> assertThat(meetup.getRegistration()).isNull());
+        assertThat(repository.countByFilter(null, EVENT, null, null)).isEqualTo(31);
+    }
+
+    @Test
+    @DisplayName("Should bump the meetup version on every update")
+    public void versionIncrementTest() {
+
+        Meetup meetup = repository.findByFilter(firstRegistrationId(), null, null, null, PageRequest.of(0, 1)).getContent().get(0);
+        Integer version = meetup.getVersion();
+
+        meetup.setMeetupDate(LocalDate.of(2021, 10, 11));
+        repository.saveAndFlush(meetup);
+
+        // a nova versão é o que muda o ETag da leitura
+        assertThat(version).isNotNull();
+        assertThat(repository.findById(meetup.getId()).orElseThrow().getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @DisplayName("Should seek meetups after the cursor applying the same filters and count the filtered set")
+    public void findAfterByFilterTest() {
+
+        // cenario: um meetup de outro evento no meio, que o filtro por event tem que pular
+        entityManager.persist(Meetup.builder()
+                .event("Outro evento")
+                .registration(entityManager.find(Registration.class, firstRegistrationId()))
+                .meetupDate(LocalDate.of(2021, 10, 20))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+
+        // execução
+        Slice<Meetup> first = repository.findAfterByFilter(0, null, EVENT, LocalDate.of(2021, 10, 21), null, 5);
+        int lastId = first.getContent().get(first.getContent().size() - 1).getId();
+        Slice<Meetup> second = repository.findAfterByFilter(lastId, null, EVENT, LocalDate.of(2021, 10, 21), null, 5);
+
+        // assert: de 21/10 a 30/10 são 10 meetups do EVENT, em duas páginas de 5 ordenadas por id
+        assertThat(first.getContent()).hasSize(5).allMatch(meetup -> EVENT.equals(meetup.getEvent()));
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).hasSize(5).allMatch(meetup -> meetup.getId() > lastId);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(repository.countByFilter(null, EVENT, LocalDate.of(2021, 10, 21), null)).isEqualTo(10);
+        assertThat(repository.countByFilter(null, null, null, null)).isEqualTo(31);
+    }
+
+    private Integer firstRegistrationId() {
+        return entityManager.getEntityManager()
+                .createQuery("select min(r.id) from Registration r", Integer.class)
+                .getSingleResult();
+    }
+}
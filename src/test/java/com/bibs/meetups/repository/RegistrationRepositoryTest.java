@@ -0,0 +1,76 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.model.entity.Registration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class RegistrationRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    RegistrationRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        // cenario: metade se chama Paula, a outra metade Amanda, e um nome com curinga de LIKE
+        for (int i = 0; i < 20; i++) {
+            entityManager.persist(Registration.builder()
+                    .name((i % 2 == 0 ? "Paula " : "Amanda ") + i)
+                    .dateOfRegistration(LocalDate.of(2022, 4, 1).plusDays(i % 4))
+                    .registration("REG-" + i)
+                    .build());
+        }
+        entityManager.persist(Registration.builder()
+                .name("100% Paula")
+                .dateOfRegistration(LocalDate.of(2022, 4, 1))
+                .registration("REG-PCT")
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should seek registrations after the cursor matching name and registration by part, ignoring case")
+    public void findAfterByFilterTest() {
+
+        // execução
+        Registration filter = Registration.builder().name("pAuLa").build();
+        Slice<Registration> first = repository.findAfterByFilter(0, filter, 6);
+        int lastId = first.getContent().get(first.getContent().size() - 1).getId();
+        Slice<Registration> second = repository.findAfterByFilter(lastId, filter, 6);
+
+        // assert: 10 Paula mais o "100% Paula"
+        assertThat(first.getContent()).hasSize(6).allMatch(registration -> registration.getName().contains("Paula"));
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).hasSize(5).allMatch(registration -> registration.getId() > lastId);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(repository.countByFilter(filter)).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("Should combine the registration filters and treat LIKE wildcards literally")
+    public void countByFilterTest() {
+
+        assertThat(repository.countByFilter(Registration.builder()
+                .name("paula")
+                .dateOfRegistration(LocalDate.of(2022, 4, 1))
+                .build())).isEqualTo(6);
+        assertThat(repository.countByFilter(Registration.builder().registration("reg-1").build())).isEqualTo(11);
+        assertThat(repository.countByFilter(Registration.builder().name("0%").build())).isEqualTo(1);
+        assertThat(repository.countByFilter(null)).isEqualTo(21);
+    }
+}
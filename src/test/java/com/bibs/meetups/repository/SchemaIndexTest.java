@@ -0,0 +1,105 @@
+package com.bibs.meetups.repository;
+
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.Registration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// o esquema vem das migrações; aqui o plano de execução de cada busca tem que passar pelo índice certo
+@DataJpaTest
+@ActiveProfiles("test")
+public class SchemaIndexTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        // cenario: tabelas com dados, para o plano não sair de tabelas vazias
+        for (int i = 0; i < 200; i++) {
+            Registration registration = entityManager.persist(Registration.builder()
+                    .name("Paula " + i)
+                    .dateOfRegistration(LocalDate.of(2022, 1, 1).plusDays(i))
+                    .registration("REG-" + i)
+                    .build());
+            entityManager.persist(Meetup.builder()
+                    .event("Evento " + (i % 20))
+                    .registration(registration)
+                    .meetupDate(LocalDate.of(2021, 10, 1).plusDays(i))
+                    .build());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Should look up a registration by its attribute through the unique index")
+    public void registrationAttributeIndexTest() {
+        assertThat(plan("select registration_id from registration where registration = 'REG-10'"))
+                .containsIgnoringCase(Registration.UNIQUE_REGISTRATION_INDEX);
+    }
+
+    @Test
+    @DisplayName("Should look up registrations by name through the name index")
+    public void registrationNameIndexTest() {
+        assertThat(plan("select registration_id from registration where registration_name = 'Paula 10'"))
+                .containsIgnoringCase("ix_registration_name");
+    }
+
+    @Test
+    @DisplayName("Should filter meetups by event through the event index")
+    public void meetupEventIndexTest() {
+        assertThat(plan("select id from meetup where event = 'Evento 3'"))
+                .containsIgnoringCase("ix_meetup_event");
+    }
+
+    @Test
+    @DisplayName("Should find the meetups of a registration through an index, without a separate one beside the unique index")
+    public void meetupRegistrationIndexTest() {
+        // no PostgreSQL quem atende é o ux_meetup_registration_event; o H2 não reaproveita índice único para a FK
+        // e cria o próprio, então aqui vale só que não há table scan nem o ix_meetup_registration redundante
+        assertThat(plan("select id from meetup where id_registration = 10"))
+                .doesNotContainIgnoringCase("tableScan");
+        assertThat(jdbcTemplate.queryForList(
+                "select lower(index_name) from information_schema.indexes where lower(table_name) = 'meetup'", String.class))
+                .contains(Meetup.UNIQUE_REGISTRATION_EVENT_INDEX)
+                .doesNotContain("ix_meetup_registration");
+    }
+
+    @Test
+    @DisplayName("Should check a registration already enrolled in an event through the unique index")
+    public void meetupRegistrationEventIndexTest() {
+        assertThat(plan("select id from meetup where id_registration = 10 and event = 'Evento 10'"))
+                .containsIgnoringCase(Meetup.UNIQUE_REGISTRATION_EVENT_INDEX);
+    }
+
+    @Test
+    @DisplayName("Should range scan the meetup date index for a date interval")
+    public void meetupDateIndexTest() {
+        assertThat(plan("select id from meetup where meetup_date >= date '2021-10-04' and meetup_date <= date '2021-10-10'"))
+                .containsIgnoringCase("ix_meetup_date");
+    }
+
+    @Test
+    @DisplayName("Should range scan the registration date index for a date interval")
+    public void registrationDateIndexTest() {
+        assertThat(plan("select registration_id from registration where date_of_registration between date '2022-01-10' and date '2022-01-17'"))
+                .containsIgnoringCase("ix_registration_date");
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
@@ -0,0 +1,186 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.MeetupRepository;
+import com.bibs.meetups.repository.RegistrationRepository;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(AttendanceCounters.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // a reconstrução lê o que já foi commitado
+public class AttendanceCountersTest {
+
+    static final String DADOS = "Womakerscode Dados";
+    static final String JAVA = "Womakerscode Java";
+
+    @Autowired
+    AttendanceCounters counters;
+
+    @Autowired
+    MeetupRepository meetupRepository;
+
+    @Autowired
+    RegistrationRepository registrationRepository;
+
+    List<Registration> registrations;
+
+    List<Meetup> meetups;
+
+    @BeforeEach
+    public void setUp() {
+        registrations = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            registrations.add(Registration.builder()
+                    .name("Paula " + i)
+                    .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                    .registration("ATT-" + i)
+                    .build());
+        }
+        registrations = registrationRepository.saveAll(registrations);
+        List<Meetup> meetups = new ArrayList<>();
+        registrations.forEach(registration -> meetups.add(meetup(registration, DADOS)));
+        meetups.add(meetup(registrations.get(0), JAVA));
+        this.meetups = meetupRepository.saveAll(meetups);
+    }
+
+    @AfterEach // o contexto é compartilhado com os outros testes de JPA
+    public void tearDown() {
+        meetupRepository.deleteAll();
+        registrationRepository.deleteAll();
+        counters.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should count registrations per event and meetups per registration from a rebuild")
+    public void rebuildTest() {
+
+        // execução
+        counters.rebuild();
+
+        // assert
+        assertThat(counters.isReady()).isTrue();
+        assertThat(counters.registrations(DADOS)).isEqualTo(3);
+        assertThat(counters.registrations(JAVA)).isEqualTo(1);
+        assertThat(counters.registrations("Womakerscode Kotlin")).isZero();
+        assertThat(counters.meetups(registrations.get(0).getId())).isEqualTo(2);
+        assertThat(counters.meetups(registrations.get(1).getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should add committed registrations and moves on top of the last rebuild")
+    public void incrementTest() {
+
+        // cenario
+        counters.rebuild();
+        Meetup kotlin = meetupRepository.save(meetup(registrations.get(1), "Womakerscode Kotlin"));
+
+        // execução
+        counters.registered(List.of(kotlin));
+        counters.moved(meetups.get(2).getId(), DADOS, registrations.get(2).getId(), JAVA, registrations.get(2).getId());
+
+        // assert
+        assertThat(counters.registrations("Womakerscode Kotlin")).isEqualTo(1);
+        assertThat(counters.registrations(DADOS)).isEqualTo(2);
+        assertThat(counters.registrations(JAVA)).isEqualTo(2);
+        assertThat(counters.meetups(registrations.get(1).getId())).isEqualTo(2);
+        assertThat(counters.meetups(registrations.get(2).getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fix drifted counters on the next rebuild")
+    public void reconcileTest() {
+
+        // cenario: um incremento que nunca chegou ao banco
+        counters.rebuild();
+        counters.registered(List.of(meetup(registrations.get(1), JAVA)));
+        assertThat(counters.registrations(JAVA)).isEqualTo(2);
+
+        // execução
+        counters.rebuild();
+
+        // assert
+        assertThat(counters.registrations(JAVA)).isEqualTo(1);
+        assertThat(counters.registrations(DADOS)).isEqualTo(3);
+        assertThat(counters.meetups(registrations.get(1).getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count each registration once when it commits while a rebuild runs")
+    public void registeredDuringRebuildTest() throws Exception {
+
+        // cenario: uma thread grava e só depois avisa os contadores, como o afterCommit, enquanto outra reconstrói
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        Future<?> writes = writer.submit(() -> {
+            for (int i = 0; i < 300; i++) {
+                Meetup saved = meetupRepository.save(meetup(registrations.get(i % 3), "Womakerscode " + i / 3));
+                Thread.yield();
+                counters.registered(List.of(saved));
+            }
+        });
+
+        // execução
+        try {
+            while (!writes.isDone()) {
+                counters.rebuild();
+            }
+            writes.get();
+        } finally {
+            writer.shutdown();
+        }
+
+        // assert: a soma de foto e delta bate com o banco, sem perder nem dobrar quem chegou no meio
+        for (Registration registration : registrations) {
+            assertThat(counters.meetups(registration.getId()))
+                    .isEqualTo(meetupRepository.countByRegistrationId(registration.getId()));
+        }
+        assertThat(counters.registrations("Womakerscode 0")).isEqualTo(3);
+        assertThat(counters.registrations("Womakerscode 99")).isEqualTo(3);
+        assertThat(counters.registrations(DADOS)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should not count again a registration that only notifies after a rebuild already counted it")
+    public void registeredAfterRebuildTest() {
+
+        // cenario: o commit entra na foto, mas o aviso só chega depois de a reconstrução terminar
+        Meetup saved = meetupRepository.save(meetup(registrations.get(1), JAVA));
+        counters.rebuild();
+
+        // execução
+        counters.registered(List.of(saved));
+
+        // assert
+        assertThat(counters.registrations(JAVA)).isEqualTo(2);
+        assertThat(counters.meetups(registrations.get(1).getId())).isEqualTo(2);
+    }
+
+    private static Meetup meetup(Registration registration, String event) {
+        return Meetup.builder()
+                .registration(registration)
+                .event(event)
+                .meetupDate(LocalDate.of(2022, 4, 10))
+                .registered(true)
+                .build();
+    }
+}
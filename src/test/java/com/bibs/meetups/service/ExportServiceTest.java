@@ -0,0 +1,122 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.service.export.ExportFormat;
+import com.bibs.meetups.service.export.ExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "meetups.export.fetch-size=100")
+@AutoConfigureJson
+@Import(ExportService.class)
+@ActiveProfiles("test")
+public class ExportServiceTest {
+
+    static final int ROWS = 2_500;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    ExportService exportService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        // cenario: mais linhas que o fetch size, para o cursor buscar em várias idas
+        for (int i = 0; i < ROWS; i++) {
+            Registration registration = entityManager.persist(Registration.builder()
+                    .name(i == 0 ? "Silva, \"Ana\"" : "Paula " + i)
+                    .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                    .registration("REG-" + i)
+                    .build());
+            entityManager.persist(Meetup.builder()
+                    .event("Womakerscode Dados")
+                    .registration(registration)
+                    .meetupDate(LocalDate.of(2021, 10, 10))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should export every registration as one JSON object per line")
+    public void exportRegistrationsAsNdjsonTest() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportRegistrations(ExportFormat.NDJSON, out);
+
+        List<String> lines = lines(out);
+        assertThat(lines).hasSize(ROWS);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("name").asText()).isEqualTo("Silva, \"Ana\"");
+        assertThat(first.get("registration").asText()).isEqualTo("REG-0");
+        assertThat(objectMapper.readTree(lines.get(ROWS - 1)).get("registration").asText()).isEqualTo("REG-" + (ROWS - 1));
+    }
+
+    @Test
+    @DisplayName("Should export every meetup as CSV with escaped values")
+    public void exportMeetupsAsCsvTest() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportMeetups(ExportFormat.CSV, out);
+
+        List<String> lines = lines(out);
+        assertThat(lines).hasSize(ROWS + 1);
+        assertThat(lines.get(0)).isEqualTo("id,event,meetupDate,registrationAttribute,registrationId,registrationName");
+        assertThat(lines.get(1)).matches("\\d+,Womakerscode Dados,10/10/2021,REG-0,\\d+,\"Silva, \"\"Ana\"\"\"");
+    }
+
+    @Test
+    @DisplayName("Should export a meetup without registration with empty registration fields")
+    public void exportMeetupWithoutRegistrationTest() throws Exception {
+
+        // cenario
+        entityManager.persist(Meetup.builder().event("Womakerscode Java").meetupDate(LocalDate.of(2021, 11, 11)).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        // execução
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.exportMeetups(ExportFormat.CSV, csv);
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        exportService.exportMeetups(ExportFormat.NDJSON, ndjson);
+
+        // assert
+        List<String> csvLines = lines(csv);
+        assertThat(csvLines).hasSize(ROWS + 2);
+        assertThat(csvLines.get(ROWS + 1)).matches("\\d+,Womakerscode Java,11/11/2021,,,");
+        List<String> ndjsonLines = lines(ndjson);
+        assertThat(ndjsonLines).hasSize(ROWS + 1);
+        JsonNode last = objectMapper.readTree(ndjsonLines.get(ROWS));
+        assertThat(last.get("event").asText()).isEqualTo("Womakerscode Java");
+        assertThat(last.get("registration").isNull()).isTrue();
+        assertThat(last.get("registrationAttribute").isNull()).isTrue();
+    }
+
+    private static List<String> lines(ByteArrayOutputStream out) {
+        return List.of(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.controller.dto.RegistrationDTO;
+import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
+import com.bibs.meetups.service.idempotency.IdempotencyStore;
+import com.bibs.meetups.service.idempotency.IdempotentRequests;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class IdempotentRequestsTest {
+
+    @MockBean
+    IdempotencyStore store;
+
+    @Test
+    @DisplayName("Should replay the first response for a retry with the same key without executing again")
+    public void replayTest() {
+
+        // cenario
+        IdempotentRequests requests = idempotentRequests(null);
+        AtomicInteger executions = new AtomicInteger();
+
+        // execução
+        Integer first = requests.execute("meetup", "key-1", request("001"), Integer.class, executions::incrementAndGet);
+        Integer retry = requests.execute("meetup", "key-1", request("001"), Integer.class, executions::incrementAndGet);
+        Integer otherKey = requests.execute("meetup", "key-2", request("001"), Integer.class, executions::incrementAndGet);
+
+        // assert
+        assertThat(first).isEqualTo(1);
+        assertThat(retry).isEqualTo(1);
+        assertThat(otherKey).isEqualTo(2);
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused with a different request")
+    public void differentRequestTest() {
+
+        // cenario
+        IdempotentRequests requests = idempotentRequests(null);
+        requests.execute("meetup", "key-1", request("001"), Integer.class, () -> 11);
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() ->
+                requests.execute("meetup", "key-1", request("002"), Integer.class, () -> 12));
+
+        // assert
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Idempotency-Key already used for a different request");
+    }
+
+    @Test
+    @DisplayName("Should execute again after a failed execution")
+    public void failureNotStoredTest() {
+
+        // cenario
+        IdempotentRequests requests = idempotentRequests(null);
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> requests.execute("meetup", "key-1", request("001"),
+                Integer.class, () -> {
+                    throw new BusinessException("Meetup is full");
+                }));
+        Integer retry = requests.execute("meetup", "key-1", request("001"), Integer.class, () -> 11);
+
+        // assert
+        assertThat(exception).hasMessage("Meetup is full");
+        assertThat(retry).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("Should execute once when retries with the same key arrive concurrently")
+    public void concurrentRetriesTest() throws Exception {
+
+        // cenario
+        IdempotentRequests requests = idempotentRequests(null);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // execução
+        List<Future<Integer>> responses = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return requests.execute("meetup", "key-1", request("001"), Integer.class, () -> {
+                    sleep(50);
+                    return executions.incrementAndGet();
+                });
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // assert
+        for (Future<Integer> response : responses) {
+            assertThat(response.get()).isEqualTo(1);
+        }
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should replay a response stored by another instance without executing")
+    public void storedResponseTest() {
+
+        // cenario
+        IdempotentRequests requests = idempotentRequests(store);
+        RegistrationDTO stored = RegistrationDTO.builder().id(101).name("Paula").registration("001").build();
+        Mockito.when(store.claim(Mockito.eq("registration"), Mockito.eq("key-1"), Mockito.anyString())).thenReturn(false);
+        Mockito.when(store.find("registration", "key-1")).thenAnswer(invocation ->
+                Optional.of(new IdempotencyStore.Record(claimedFingerprint(),
+                        new ObjectMapper().writeValueAsString(stored))));
+
+        // execução
+        RegistrationDTO response = requests.execute("registration", "key-1", request("001"), RegistrationDTO.class,
+                () -> {
+                    throw new IllegalStateException("should not execute");
+                });
+
+        // assert
+        assertThat(response).isEqualTo(stored);
+        Mockito.verify(store, Mockito.never()).complete(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should answer conflict while another instance is still executing the same key")
+    public void inProgressInStoreTest() {
+
+        // cenario
+        IdempotentRequests requests = idempotentRequests(store);
+        Mockito.when(store.claim(Mockito.eq("meetup"), Mockito.eq("key-1"), Mockito.anyString())).thenReturn(false);
+        Mockito.when(store.find("meetup", "key-1")).thenReturn(Optional.empty());
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() ->
+                requests.execute("meetup", "key-1", request("001"), Integer.class, () -> 11));
+
+        // assert
+        assertThat(exception).isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    @DisplayName("Should store the response of the first execution and release the key when it fails")
+    public void storeCompleteAndReleaseTest() {
+
+        // cenario
+        IdempotentRequests requests = idempotentRequests(store);
+        Mockito.when(store.claim(Mockito.any(), Mockito.any(), Mockito.anyString())).thenReturn(true);
+
+        // execução
+        requests.execute("meetup", "key-1", request("001"), Integer.class, () -> 11);
+        Assertions.catchThrowable(() -> requests.execute("meetup", "key-2", request("001"), Integer.class, () -> {
+            throw new BusinessException("Meetup is full");
+        }));
+
+        // assert
+        Mockito.verify(store).complete("meetup", "key-1", "11");
+        Mockito.verify(store).release("meetup", "key-2");
+    }
+
+    private static IdempotentRequests idempotentRequests(IdempotencyStore store) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<IdempotencyStore> provider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getIfAvailable()).thenReturn(store);
+        return new IdempotentRequests(1000, Duration.ofMinutes(10), Duration.ofSeconds(5), provider, new ObjectMapper());
+    }
+
+    // o mesmo corpo gera o mesmo fingerprint na outra instância: reaproveita o que esta passou no claim
+    private String claimedFingerprint() {
+        return Mockito.mockingDetails(store).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("claim"))
+                .map(invocation -> (String) invocation.getArgument(2))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static RegistrationDTO request(String registration) {
+        return RegistrationDTO.builder().name("Paula").dateOfRegistration("04/04/2022").registration(registration).build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
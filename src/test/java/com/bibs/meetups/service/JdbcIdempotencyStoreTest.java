@@ -0,0 +1,83 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.service.idempotency.IdempotencyStore;
+import com.bibs.meetups.service.idempotency.JdbcIdempotencyStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"meetups.idempotency.store=jdbc", "meetups.idempotency.expire-after-write=1h"})
+@ActiveProfiles("test")
+@Import(JdbcIdempotencyStore.class)
+public class JdbcIdempotencyStoreTest {
+
+    @Autowired
+    IdempotencyStore store;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should claim a key once and keep the response given for it")
+    public void claimAndCompleteTest() {
+
+        // execução
+        boolean first = store.claim("meetup", "key-1", "abc");
+        boolean retry = store.claim("meetup", "key-1", "abc");
+        IdempotencyStore.Record inProgress = store.find("meetup", "key-1").orElseThrow();
+        store.complete("meetup", "key-1", "11");
+
+        // assert
+        assertThat(first).isTrue();
+        assertThat(retry).isFalse();
+        assertThat(inProgress.getResponse()).isNull();
+        assertThat(store.find("meetup", "key-1").orElseThrow().getResponse()).isEqualTo("11");
+        assertThat(store.claim("registration", "key-1", "abc")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should free a key released after a failed execution")
+    public void releaseTest() {
+
+        // cenario
+        store.claim("meetup", "key-1", "abc");
+
+        // execução
+        store.release("meetup", "key-1");
+
+        // assert
+        assertThat(store.find("meetup", "key-1")).isEmpty();
+        assertThat(store.claim("meetup", "key-1", "abc")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reuse an expired key and purge the expired ones")
+    public void expiredKeyTest() {
+
+        // cenario
+        store.claim("meetup", "key-1", "abc");
+        store.complete("meetup", "key-1", "11");
+        store.claim("meetup", "key-2", "abc");
+        jdbcTemplate.update("update idempotency_key set created_at = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofHours(2))));
+
+        // execução
+        boolean reclaimed = store.claim("meetup", "key-1", "def");
+        ((JdbcIdempotencyStore) store).purgeExpired();
+
+        // assert
+        assertThat(reclaimed).isTrue();
+        assertThat(store.find("meetup", "key-1").orElseThrow().getFingerprint()).isEqualTo("def");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from idempotency_key", Integer.class)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,263 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.MeetupCapacity;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.MeetupCapacityRepository;
+import com.bibs.meetups.repository.MeetupRepository;
+import com.bibs.meetups.repository.RegistrationRepository;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.cache.RegistrationCache;
+import com.bibs.meetups.service.capacity.SeatCounter;
+import com.bibs.meetups.service.impl.MeetupServiceImpl;
+import com.bibs.meetups.service.impl.RegistrationServiceImpl;
+import com.bibs.meetups.service.outbox.Outbox;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({MeetupServiceImpl.class, SeatCounter.class, RegistrationServiceImpl.class,
+        RegistrationCache.class, RegistrationSearchIndex.class, AttendanceCounters.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // cada thread precisa da sua própria transação
+public class MeetupCapacityConcurrencyTest {
+
+    static final String EVENT = "Womakerscode Dados";
+    static final int CAPACITY = 100;
+    static final int ATTEMPTS = 1500;
+    static final int THREADS = 64;
+
+    @Autowired
+    MeetupService meetupService;
+
+    @Autowired
+    MeetupRepository meetupRepository;
+
+    @Autowired
+    MeetupCapacityRepository capacityRepository;
+
+    @Autowired
+    RegistrationRepository registrationRepository;
+
+    @Autowired
+    SeatCounter seatCounter;
+
+    @MockBean
+    Outbox outbox;
+
+    List<Registration> registrations;
+
+    @BeforeEach
+    public void setUp() {
+        registrations = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            registrations.add(Registration.builder()
+                    .name("Paula " + i)
+                    .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                    .registration("REG-" + i)
+                    .build());
+        }
+        registrations = registrationRepository.saveAll(registrations);
+        seatCounter.reset(EVENT);
+    }
+
+    @AfterEach // o contexto é compartilhado com os outros testes de JPA
+    public void tearDown() {
+        meetupRepository.deleteAllInBatch();
+        capacityRepository.deleteAllInBatch();
+        registrationRepository.deleteAllInBatch();
+        seatCounter.reset(EVENT);
+    }
+
+    @Test
+    @DisplayName("Should never register more people than the meetup capacity")
+    public void concurrentRegistrationsOnFullMeetupTest() throws Exception {
+
+        // cenario: cada registration tenta uma vaga, e algumas repetem a inscrição
+        meetupService.setCapacity(EVENT, CAPACITY);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger full = new AtomicInteger();
+        AtomicInteger duplicated = new AtomicInteger();
+        List<Throwable> unexpected = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        // execução
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            Registration registration = registrations.get(i % 50 == 0 ? 0 : i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    meetupService.save(Meetup.builder()
+                            .registration(registration)
+                            .event(EVENT)
+                            .meetupDate(LocalDate.of(2021, 10, 10))
+                            .build());
+                    created.incrementAndGet();
+                } catch (BusinessException e) {
+                    if ("Meetup is full".equals(e.getMessage())) {
+                        full.incrementAndGet();
+                    } else {
+                        assertThat(e).hasMessage("Meetup already enrolled");
+                        duplicated.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (unexpected) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // assert: lotação exata, e a vaga de quem falhou por duplicidade volta para o contador
+        assertThat(unexpected).isEmpty();
+        assertThat(created.get()).isEqualTo(CAPACITY);
+        assertThat(created.get() + full.get() + duplicated.get()).isEqualTo(ATTEMPTS);
+        assertThat(meetupRepository.countByEvent(EVENT)).isEqualTo(CAPACITY);
+        assertThat(capacityRepository.findById(EVENT).orElseThrow().getReserved()).isEqualTo(CAPACITY);
+        assertThat(seatCounter.available(EVENT)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not lower the capacity below the current registrations")
+    public void capacityBelowRegistrationsTest() {
+
+        meetupService.setCapacity(EVENT, 2);
+        meetupService.save(Meetup.builder().registration(registrations.get(0)).event(EVENT).build());
+        meetupService.save(Meetup.builder().registration(registrations.get(1)).event(EVENT).build());
+
+        Throwable exception = org.assertj.core.api.Assertions.catchThrowable(() -> meetupService.setCapacity(EVENT, 1));
+
+        assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage("Capacity below current registrations");
+        assertThat(meetupService.setCapacity(EVENT, 3).getReserved()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should register the first meetups of an event without capacity without a capacity row")
+    public void concurrentFirstRegistrationsTest() throws Exception {
+
+        // cenario: evento sem lotação, sem linha ainda
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        // execução
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS * 2; i++) {
+            Registration registration = registrations.get(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                return meetupService.save(Meetup.builder().registration(registration).event(EVENT).build());
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // assert: sem limite a inscrição não passa pela linha de lotação
+        assertThat(meetupRepository.countByEvent(EVENT)).isEqualTo(THREADS * 2);
+        assertThat(capacityRepository.findById(EVENT)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should count registrations of an event without capacity so a later capacity cannot go below them")
+    public void capacityAfterUnlimitedRegistrationsTest() {
+
+        // cenario: inscrições antes de existir lotação
+        meetupService.save(Meetup.builder().registration(registrations.get(0)).event(EVENT).build());
+        meetupService.save(Meetup.builder().registration(registrations.get(1)).event(EVENT).build());
+
+        // execução
+        Throwable exception = org.assertj.core.api.Assertions.catchThrowable(() -> meetupService.setCapacity(EVENT, 1));
+
+        // assert
+        assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage("Capacity below current registrations");
+        assertThat(capacityRepository.findById(EVENT).map(MeetupCapacity::getCapacity)).isEmpty();
+        assertThat(meetupService.setCapacity(EVENT, 2).getReserved()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should move the seat between events when an update changes the event")
+    public void updateMovesSeatTest() {
+
+        // cenario: o outro evento só tem uma vaga
+        String other = "Womakerscode Java";
+        meetupService.setCapacity(EVENT, 5);
+        meetupService.setCapacity(other, 1);
+        Meetup first = meetupService.save(Meetup.builder().registration(registrations.get(0)).event(EVENT).build());
+        Meetup second = meetupService.save(Meetup.builder().registration(registrations.get(1)).event(EVENT).build());
+
+        // execução
+        meetupService.update(Meetup.builder().id(first.getId()).version(first.getVersion())
+                .registration(registrations.get(0)).event(other).build());
+        Throwable full = org.assertj.core.api.Assertions.catchThrowable(() -> meetupService.update(
+                Meetup.builder().id(second.getId()).version(second.getVersion())
+                        .registration(registrations.get(1)).event(other).build()));
+
+        // assert
+        assertThat(full).isInstanceOf(BusinessException.class).hasMessage("Meetup is full");
+        assertThat(capacityRepository.findById(EVENT).orElseThrow().getReserved()).isEqualTo(1);
+        assertThat(capacityRepository.findById(other).orElseThrow().getReserved()).isEqualTo(1);
+        assertThat(seatCounter.available(EVENT)).isEqualTo(4);
+        assertThat(meetupRepository.countByEvent(other)).isEqualTo(1);
+        seatCounter.reset(other);
+    }
+
+    @Test
+    @DisplayName("Should turn a stale version or a repeated enrollment on update into an error of the method itself")
+    public void updateConflictsTest() {
+
+        // cenario
+        Meetup first = meetupService.save(Meetup.builder().registration(registrations.get(0)).event(EVENT).build());
+        meetupService.save(Meetup.builder().registration(registrations.get(1)).event(EVENT).build());
+        Integer staleVersion = first.getVersion();
+        meetupService.update(Meetup.builder().id(first.getId()).version(staleVersion)
+                .registration(registrations.get(0)).event(EVENT).meetupDate(LocalDate.of(2021, 10, 10)).build());
+
+        // execução
+        Throwable stale = org.assertj.core.api.Assertions.catchThrowable(() -> meetupService.update(
+                Meetup.builder().id(first.getId()).version(staleVersion)
+                        .registration(registrations.get(0)).event(EVENT).meetupDate(LocalDate.of(2021, 10, 11)).build()));
+        Throwable duplicated = org.assertj.core.api.Assertions.catchThrowable(() -> meetupService.update(
+                Meetup.builder().id(first.getId()).version(staleVersion + 1)
+                        .registration(registrations.get(1)).event(EVENT).build()));
+
+        // assert
+        assertThat(stale).isInstanceOf(ConflictException.class).hasMessage("Meetup was modified by another request");
+        assertThat(duplicated).isInstanceOf(BusinessException.class).hasMessage("Meetup already enrolled");
+    }
+}
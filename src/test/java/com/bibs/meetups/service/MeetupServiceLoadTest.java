@@ -0,0 +1,165 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.controller.dto.MeetupFilterDTO;
+import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.MeetupCapacityRepository;
+import com.bibs.meetups.repository.MeetupRepository;
+import com.bibs.meetups.repository.OutboxEventRepository;
+import com.bibs.meetups.repository.RegistrationRepository;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.cache.RegistrationCache;
+import com.bibs.meetups.service.capacity.SeatCounter;
+import com.bibs.meetups.service.impl.MeetupServiceImpl;
+import com.bibs.meetups.service.impl.RegistrationServiceImpl;
+import com.bibs.meetups.service.outbox.Outbox;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // cada thread precisa da sua própria transação
+public class MeetupServiceLoadTest {
+
+    static final int REGISTRATIONS = 50;
+    static final int EVENTS = 20;
+    static final int ATTEMPTS = 4000;
+    static final int THREADS = 64;
+
+    @Autowired
+    RegistrationRepository registrationRepository;
+
+    @Autowired
+    MeetupRepository meetupRepository;
+
+    @Autowired
+    MeetupCapacityRepository capacityRepository;
+
+    @Autowired
+    OutboxEventRepository outboxRepository;
+
+    MeetupService meetupService;
+
+    List<Registration> registrations;
+
+    @BeforeEach
+    public void setUp() {
+        RegistrationService registrationService = new RegistrationServiceImpl(registrationRepository,
+                new RegistrationCache(100, Duration.ofMinutes(10)),
+                new RegistrationSearchIndex(registrationRepository, false),
+                new Outbox(outboxRepository, new ObjectMapper()),
+                Mockito.mock(AttendanceCounters.class));
+        this.meetupService = new MeetupServiceImpl(meetupRepository, capacityRepository, registrationService,
+                new SeatCounter(capacityRepository, Duration.ofSeconds(5)), new Outbox(outboxRepository, new ObjectMapper()),
+                Mockito.mock(AttendanceCounters.class));
+        meetupRepository.deleteAll();
+        registrationRepository.deleteAll();
+
+        registrations = new ArrayList<>();
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            registrations.add(Registration.builder()
+                    .name("Paula " + i)
+                    .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                    .registration("REG-" + i)
+                    .build());
+        }
+        registrations = registrationRepository.saveAll(registrations);
+    }
+
+    @AfterEach // o contexto é compartilhado com os outros testes de JPA
+    public void tearDown() {
+        meetupRepository.deleteAllInBatch();
+        registrationRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should keep one meetup per registration and event under concurrent saves and reads")
+    public void concurrentSaveAndFindTest() throws Exception {
+
+        // cenario: metade das tentativas repete um par (registration, event) já usado
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger reads = new AtomicInteger();
+        List<Throwable> unexpected = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        int distinct = Math.min(REGISTRATIONS * EVENTS, ATTEMPTS / 2);
+
+        // execução
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            int slot = i % distinct;
+            Registration registration = registrations.get(slot % REGISTRATIONS);
+            String event = "Evento " + (slot / REGISTRATIONS);
+            boolean read = i % 4 == 3;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    if (read) {
+                        Page<MeetupDTO> page = meetupService.findSummaries(MeetupFilterDTO.builder()
+                                .registration(registration.getRegistration())
+                                .build(), PageRequest.of(0, 10));
+                        assertThat(page.getContent()).allMatch(meetup ->
+                                registration.getRegistration().equals(meetup.getRegistrationAttribute()));
+                        reads.incrementAndGet();
+                    } else {
+                        meetupService.save(Meetup.builder()
+                                .registration(registration)
+                                .event(event)
+                                .meetupDate(LocalDate.of(2021, 10, 10))
+                                .build());
+                        created.incrementAndGet();
+                    }
+                } catch (BusinessException e) {
+                    assertThat(e).hasMessage("Meetup already enrolled");
+                    rejected.incrementAndGet();
+                } catch (RuntimeException | AssertionError e) {
+                    synchronized (unexpected) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // assert
+        assertThat(unexpected).isEmpty();
+        assertThat(reads.get()).isEqualTo(ATTEMPTS / 4);
+        assertThat(created.get() + rejected.get()).isEqualTo(ATTEMPTS - ATTEMPTS / 4);
+        assertThat((long) created.get()).isEqualTo(meetupRepository.count());
+        assertThat(created.get()).isLessThanOrEqualTo(distinct);
+        assertThat(rejected.get()).isPositive();
+    }
+}
@@ -0,0 +1,337 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.controller.dto.MeetupDTO;
+import com.bibs.meetups.controller.dto.MeetupFilterDTO;
+import com.bibs.meetups.exception.BusinessException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import com.bibs.meetups.exception.ConflictException;
+import com.bibs.meetups.model.entity.Meetup;
+import com.bibs.meetups.model.entity.MeetupCapacity;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.MeetupCapacityRepository;
+import com.bibs.meetups.repository.MeetupRepository;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.capacity.SeatCounter;
+import com.bibs.meetups.service.impl.MeetupServiceImpl;
+import com.bibs.meetups.service.outbox.Outbox;
+import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class MeetupServiceTest {
+
+    MeetupService meetupService;
+
+    @MockBean
+    MeetupRepository repository;
+
+    @MockBean
+    MeetupCapacityRepository capacityRepository;
+
+    @MockBean
+    RegistrationService registrationService;
+
+    @MockBean
+    Outbox outbox;
+
+    @MockBean
+    AttendanceCounters attendanceCounters;
+
+    @BeforeEach
+    public void setUp() {
+        this.meetupService = new MeetupServiceImpl(repository, capacityRepository, registrationService,
+                new SeatCounter(capacityRepository, Duration.ofMinutes(1)), outbox, attendanceCounters);
+    }
+
+    @Test
+    @DisplayName("Should save a meetup")
+    public void saveMeetupTest() {
+
+        // cenario
+        Meetup meetup = createMeetup(null);
+        Mockito.when(repository.saveAndFlush(meetup)).thenReturn(createMeetup(11));
+
+        // execução
+        Meetup saved = meetupService.save(meetup);
+
+        // assert
+        assertThat(saved.getId()).isEqualTo(11);
+        assertThat(saved.getEvent()).isEqualTo("Womakerscode Dados");
+        Mockito.verify(outbox).meetupRegistered(saved);
+        Mockito.verify(attendanceCounters).registered(List.of(saved));
+    }
+
+    @Test
+    @DisplayName("Should throw business error when the registration is already enrolled in the event")
+    public void shouldNotSaveDuplicatedMeetupTest() {
+
+        // cenario
+        Meetup meetup = createMeetup(null);
+        Mockito.when(repository.saveAndFlush(meetup)).thenThrow(new DataIntegrityViolationException("duplicated",
+                new ConstraintViolationException("duplicated", null, Meetup.UNIQUE_REGISTRATION_EVENT_INDEX)));
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> meetupService.save(meetup));
+
+        // assert
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Meetup already enrolled");
+        Mockito.verify(outbox, Mockito.never()).meetupRegistered(Mockito.any());
+        Mockito.verify(attendanceCounters, Mockito.never()).registered(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should save meetups of an event without capacity without updating the capacity row")
+    public void saveWithoutCapacityTest() {
+
+        // cenario: evento sem linha de lotação
+        Mockito.when(repository.saveAndFlush(Mockito.any(Meetup.class))).thenReturn(createMeetup(11));
+
+        // execução
+        meetupService.save(createMeetup(null));
+        meetupService.save(createMeetup(null));
+
+        // assert: uma leitura da lotação, guardada como "sem limite", e nenhum update com lock
+        Mockito.verify(capacityRepository, Mockito.times(1)).findById("Womakerscode Dados");
+        Mockito.verify(capacityRepository, Mockito.never()).reserve(Mockito.anyString(), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Should reject a meetup without free seats before touching the database")
+    public void shouldNotSaveOnFullMeetupTest() {
+
+        // cenario: lotação 1 já ocupada
+        Mockito.when(capacityRepository.findById("Womakerscode Dados")).thenReturn(Optional.of(
+                MeetupCapacity.builder().event("Womakerscode Dados").capacity(1).reserved(1).build()));
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> meetupService.save(createMeetup(null)));
+
+        // assert
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Meetup is full");
+        Mockito.verify(capacityRepository, Mockito.never()).reserve(Mockito.anyString(), Mockito.anyInt());
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any());
+
+        // e a próxima tentativa recusa pelo "lotado" guardado, sem reler a linha
+        assertThat(Assertions.catchThrowable(() -> meetupService.save(createMeetup(null))))
+                .hasMessage("Meetup is full");
+        Mockito.verify(capacityRepository, Mockito.times(1)).findById("Womakerscode Dados");
+    }
+
+    @Test
+    @DisplayName("Should reserve the seat in the database when the meetup has capacity")
+    public void saveWithCapacityTest() {
+
+        // cenario
+        Meetup meetup = createMeetup(null);
+        Mockito.when(capacityRepository.findById("Womakerscode Dados")).thenReturn(Optional.of(
+                MeetupCapacity.builder().event("Womakerscode Dados").capacity(10).reserved(0).build()));
+        Mockito.when(capacityRepository.reserve("Womakerscode Dados", 1)).thenReturn(1);
+        Mockito.when(repository.saveAndFlush(meetup)).thenReturn(createMeetup(11));
+
+        // execução
+        Meetup saved = meetupService.save(meetup);
+
+        // assert
+        assertThat(saved.getId()).isEqualTo(11);
+        Mockito.verify(capacityRepository).reserve("Womakerscode Dados", 1);
+    }
+
+    @Test
+    @DisplayName("Should save a batch of meetups with a single flush")
+    public void saveAllTest() {
+
+        // cenario
+        List<Meetup> meetups = Arrays.asList(createMeetup(null), createMeetup(null));
+        Mockito.when(repository.saveAll(meetups)).thenReturn(Arrays.asList(createMeetup(1), createMeetup(2)));
+
+        // execução
+        List<Meetup> saved = meetupService.saveAll(meetups);
+
+        // assert
+        assertThat(saved).extracting(Meetup::getId).containsExactly(1, 2);
+        Mockito.verify(repository, Mockito.times(1)).flush();
+    }
+
+    @Test
+    @DisplayName("Should not update a meetup without id")
+    public void updateInvalidMeetupTest() {
+
+        Throwable exception = Assertions.catchThrowable(() -> meetupService.update(createMeetup(null)));
+
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should move the seat to the new event when an update changes the event")
+    public void updateMovesSeatTest() {
+
+        // cenario: os dois eventos com lotação
+        Meetup meetup = createMeetup(11);
+        meetup.setEvent("Womakerscode Java");
+        Mockito.when(capacityRepository.findById("Womakerscode Dados")).thenReturn(Optional.of(
+                MeetupCapacity.builder().event("Womakerscode Dados").capacity(10).reserved(1).build()));
+        Mockito.when(capacityRepository.findById("Womakerscode Java")).thenReturn(Optional.of(
+                MeetupCapacity.builder().event("Womakerscode Java").capacity(10).reserved(0).build()));
+        Mockito.when(capacityRepository.reserve("Womakerscode Java", 1)).thenReturn(1);
+        Mockito.when(repository.findById(11)).thenReturn(Optional.of(createMeetup(11)));
+        Mockito.when(repository.saveAndFlush(meetup)).thenReturn(meetup);
+
+        // execução
+        meetupService.update(meetup);
+
+        // assert
+        Mockito.verify(capacityRepository).reserve("Womakerscode Java", 1);
+        Mockito.verify(capacityRepository).release("Womakerscode Dados", 1);
+    }
+
+    @Test
+    @DisplayName("Should keep the seat when an update does not change the event")
+    public void updateSameEventTest() {
+
+        // cenario
+        Meetup meetup = createMeetup(11);
+        meetup.setMeetupDate(LocalDate.of(2021, 10, 11));
+        Mockito.when(repository.findById(11)).thenReturn(Optional.of(createMeetup(11)));
+        Mockito.when(repository.saveAndFlush(meetup)).thenReturn(meetup);
+
+        // execução
+        meetupService.update(meetup);
+
+        // assert
+        Mockito.verify(capacityRepository, Mockito.never()).reserve(Mockito.anyString(), Mockito.anyInt());
+        Mockito.verify(capacityRepository, Mockito.never()).release(Mockito.anyString(), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Should flush the update so a stale version becomes a conflict inside the method")
+    public void updateStaleMeetupTest() {
+
+        // cenario
+        Meetup meetup = createMeetup(11);
+        Mockito.when(repository.findById(11)).thenReturn(Optional.of(createMeetup(11)));
+        Mockito.when(repository.saveAndFlush(meetup))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Meetup.class, 11));
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> meetupService.update(meetup));
+
+        // assert
+        assertThat(exception).isInstanceOf(ConflictException.class)
+                .hasMessage("Meetup was modified by another request");
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should filter meetups by the registration id resolved from the registration attribute")
+    public void findSummariesTest() {
+
+        // cenario
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        MeetupFilterDTO filter = MeetupFilterDTO.builder().registration("123").build();
+        Page<MeetupDTO> page = new PageImpl<>(Arrays.asList(MeetupDTO.builder().id(11).build()), pageRequest, 1);
+        Mockito.when(registrationService.getRegistrationByRegistrationAtr("123"))
+                .thenReturn(Optional.of(Registration.builder().id(101).registration("123").build()));
+        Mockito.when(repository.findSummariesByFilter(101, null, null, null, pageRequest)).thenReturn(page);
+
+        // execução
+        Page<MeetupDTO> result = meetupService.findSummaries(filter, pageRequest);
+
+        // assert
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).extracting(MeetupDTO::getId).containsExactly(11);
+    }
+
+    @Test
+    @DisplayName("Should return an empty page without querying meetups when the registration does not exist")
+    public void findByUnknownRegistrationTest() {
+
+        // cenario
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        MeetupFilterDTO filter = MeetupFilterDTO.builder().registration("999").build();
+        Mockito.when(registrationService.getRegistrationByRegistrationAtr("999")).thenReturn(Optional.empty());
+
+        // execução
+        Page<Meetup> result = meetupService.find(filter, pageRequest);
+
+        // assert
+        assertThat(result.getContent()).isEmpty();
+        Mockito.verify(repository, Mockito.never()).findByFilter(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should seek and count meetups by cursor with the registration id resolved from the filter")
+    public void findAfterWithFilterTest() {
+
+        // cenario
+        MeetupFilterDTO filter = MeetupFilterDTO.builder().registration("123").build();
+        Mockito.when(registrationService.getRegistrationByRegistrationAtr("123"))
+                .thenReturn(Optional.of(Registration.builder().id(101).registration("123").build()));
+        Mockito.when(repository.findAfterByFilter(40, 101, null, null, null, 10))
+                .thenReturn(new SliceImpl<>(List.of(createMeetup(41))));
+        Mockito.when(repository.countByFilter(101, null, null, null)).thenReturn(1L);
+
+        // execução
+        Slice<Meetup> result = meetupService.findAfter(filter, 40, 10);
+        long count = meetupService.count(filter);
+
+        // assert
+        assertThat(result.getContent()).extracting(Meetup::getId).containsExactly(41);
+        assertThat(count).isEqualTo(1);
+        Mockito.verify(repository, Mockito.never()).count();
+    }
+
+    @Test
+    @DisplayName("Should reject a date range that ends before it starts")
+    public void invalidDateRangeTest() {
+
+        // cenario
+        MeetupFilterDTO filter = MeetupFilterDTO.builder()
+                .from(LocalDate.of(2021, 10, 10))
+                .to(LocalDate.of(2021, 10, 4))
+                .build();
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> meetupService.findSummaries(filter, PageRequest.of(0, 10)));
+
+        // assert
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Invalid date range");
+        Mockito.verifyNoInteractions(repository);
+    }
+
+    private Meetup createMeetup(Integer id) {
+        return Meetup.builder()
+                .id(id)
+                .event("Womakerscode Dados")
+                .registration(Registration.builder().id(101).registration("123").build())
+                .meetupDate(LocalDate.of(2021, 10, 10))
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.model.entity.OutboxEvent;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.OutboxEventRepository;
+import com.bibs.meetups.service.outbox.InMemoryOutboxSink;
+import com.bibs.meetups.service.outbox.Outbox;
+import com.bibs.meetups.service.outbox.OutboxDispatcher;
+import com.bibs.meetups.service.outbox.OutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // o dispatcher abre e fecha as próprias transações
+public class OutboxDispatcherTest {
+
+    @Autowired
+    OutboxEventRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Outbox outbox;
+
+    InMemoryOutboxSink sink;
+
+    @BeforeEach
+    public void setUp() {
+        repository.deleteAll();
+        outbox = new Outbox(repository, new ObjectMapper());
+        sink = new InMemoryOutboxSink(100);
+    }
+
+    @Test
+    @DisplayName("Should deliver the pending events in batches and in order, then remove them")
+    public void dispatchTest() {
+
+        // cenario
+        outbox.registrationsCreated(registrations(5));
+        OutboxDispatcher dispatcher = dispatcher(List.of(sink::publish), 2);
+
+        // execução
+        dispatcher.dispatch();
+
+        // assert
+        assertThat(sink.getEvents()).extracting(OutboxEvent::getAggregateId).containsExactly(1, 2, 3, 4, 5);
+        assertThat(sink.getEvents()).allSatisfy(event -> {
+            assertThat(event.getType()).isEqualTo(Outbox.REGISTRATION_CREATED);
+            assertThat(event.getPayload()).contains("\"registration\":\"REG-" + event.getAggregateId() + "\"");
+        });
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep the events of a failed batch and retry them only after the backoff")
+    public void failedBatchTest() {
+
+        // cenario
+        outbox.registrationsCreated(registrations(3));
+        OutboxDispatcher failing = dispatcher(List.of(events -> {
+            throw new IllegalStateException("smtp down");
+        }), 10);
+
+        // execução
+        Instant before = Instant.now();
+        failing.dispatch();
+        dispatcher(List.of(sink::publish), 10).dispatch();
+
+        // assert
+        assertThat(sink.getEvents()).isEmpty();
+        assertThat(repository.findAll()).hasSize(3).allSatisfy(event -> {
+            assertThat(event.getAttempts()).isEqualTo(1);
+            assertThat(event.getNextAttemptAt()).isAfter(before.plusSeconds(30));
+        });
+    }
+
+    @Test
+    @DisplayName("Should not keep events recorded in a transaction that rolled back")
+    public void rollbackTest() {
+
+        // execução
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outbox.registrationCreated(registrations(1).get(0));
+            status.setRollbackOnly();
+        });
+
+        // assert
+        assertThat(repository.count()).isZero();
+    }
+
+    private OutboxDispatcher dispatcher(List<OutboxSink> sinks, int batchSize) {
+        return new OutboxDispatcher(repository, transactionManager, sinks, batchSize,
+                Duration.ofMinutes(1), Duration.ofMinutes(5));
+    }
+
+    private static List<Registration> registrations(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> Registration.builder().id(i).name("Paula " + i).registration("REG-" + i).build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,133 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.service.cache.RegistrationCache;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RegistrationCacheTest {
+
+    RegistrationCache cache = new RegistrationCache(100, Duration.ofMinutes(10));
+
+    @Test
+    @DisplayName("Should load a registration once when the same id is read concurrently")
+    public void collapseConcurrentLoadsTest() throws Exception {
+
+        // cenario
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // execução
+        List<Future<Optional<Registration>>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.getById(11, id -> {
+                    queries.incrementAndGet();
+                    sleep(100);
+                    return Optional.of(registration(id));
+                });
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // assert
+        for (Future<Optional<Registration>> result : results) {
+            assertThat(result.get()).hasValueSatisfying(registration -> assertThat(registration.getId()).isEqualTo(11));
+        }
+        assertThat(queries.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should wait for a batch already loading an id instead of loading it again")
+    public void collapseBatchAndSingleLoadTest() throws Exception {
+
+        // cenario: o lote está carregando os ids 1 a 3
+        CountDownLatch batchLoading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Map<Integer, Registration>> batch = executor.submit(() -> cache.getAllById(List.of(1, 2, 3), ids -> {
+            batchLoading.countDown();
+            sleep(200);
+            Map<Integer, Registration> found = new HashMap<>();
+            ids.forEach(id -> found.put(id, registration(id)));
+            return found;
+        }));
+        assertThat(batchLoading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // execução
+        Optional<Registration> single = cache.getById(2, id -> {
+            throw new IllegalStateException("should wait for the batch");
+        });
+        Map<Integer, Registration> overlapping = cache.getAllById(List.of(3, 4), ids -> {
+            assertThat(ids).containsExactly(4);
+            return Map.of(4, registration(4));
+        });
+
+        // assert
+        assertThat(single).isPresent();
+        assertThat(batch.get(5, TimeUnit.SECONDS)).containsOnlyKeys(1, 2, 3);
+        assertThat(overlapping).containsOnlyKeys(3, 4);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should not keep missing registrations nor failed loads in the cache")
+    public void missingAndFailedLoadsTest() {
+
+        // cenario
+        AtomicInteger queries = new AtomicInteger();
+
+        // execução
+        Optional<Registration> missing = cache.getById(11, id -> {
+            queries.incrementAndGet();
+            return Optional.empty();
+        });
+        Throwable failure = Assertions.catchThrowable(() -> cache.getAllById(Set.of(12), ids -> {
+            throw new IllegalStateException("database down");
+        }));
+        Optional<Registration> found = cache.getById(11, id -> {
+            queries.incrementAndGet();
+            return Optional.of(registration(id));
+        });
+        Map<Integer, Registration> retried = cache.getAllById(Set.of(12), ids -> Map.of(12, registration(12)));
+
+        // assert
+        assertThat(missing).isEmpty();
+        assertThat(failure).isInstanceOf(IllegalStateException.class).hasMessage("database down");
+        assertThat(found).isPresent();
+        assertThat(retried).containsOnlyKeys(12);
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    private static Registration registration(int id) {
+        return Registration.builder().id(id).name("Paula " + id).registration("REG-" + id).build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.RegistrationRepository;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class RegistrationSearchIndexTest {
+
+    RegistrationSearchIndex searchIndex;
+
+    @MockBean
+    RegistrationRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        this.searchIndex = new RegistrationSearchIndex(repository, true);
+        this.searchIndex.indexAll(List.of(
+                registration(1, "Paula Souza", "WMK-001"),
+                registration(2, "Ana Paula", "WMK-002"),
+                registration(3, "Amanda", "BTC-003")));
+    }
+
+    @Test
+    @DisplayName("Should find registrations by substring ignoring case")
+    public void substringSearchTest() {
+
+        assertThat(ids(searchIndex.search("PAUL", null, PageRequest.of(0, 10)))).containsExactly(1, 2);
+        assertThat(ids(searchIndex.search(null, "wmk", PageRequest.of(0, 10)))).containsExactly(1, 2);
+        assertThat(ids(searchIndex.search("paula", "002", PageRequest.of(0, 10)))).containsExactly(2);
+        assertThat(ids(searchIndex.search("xyz", null, PageRequest.of(0, 10)))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find registrations by prefix, including queries shorter than a trigram")
+    public void prefixSearchTest() {
+
+        assertThat(ids(searchIndex.searchPrefix("pa", null, PageRequest.of(0, 10)))).containsExactly(1);
+        assertThat(ids(searchIndex.searchPrefix("a", null, PageRequest.of(0, 10)))).containsExactly(2, 3);
+        assertThat(ids(searchIndex.search("a", null, PageRequest.of(0, 10)))).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    @DisplayName("Should keep the index in sync with updates and removals")
+    public void updateAndRemoveTest() {
+
+        searchIndex.index(registration(3, "Amanda Paula", "BTC-003"));
+        searchIndex.remove(1);
+
+        assertThat(ids(searchIndex.search("paula", null, PageRequest.of(0, 10)))).containsExactly(2, 3);
+        assertThat(ids(searchIndex.search("souza", null, PageRequest.of(0, 10)))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should page matches in id order with the total count")
+    public void pagedSearchTest() {
+
+        Pageable secondPage = PageRequest.of(1, 2);
+        Page<Integer> page = searchIndex.search("a", null, secondPage);
+
+        assertThat(page.getContent()).containsExactly(3);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should load every stored registration when rebuilt")
+    public void rebuildTest() {
+
+        RegistrationSearchIndex rebuilt = new RegistrationSearchIndex(repository, true);
+        Mockito.when(repository.findByIdGreaterThan(Mockito.eq(0), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(registration(7, "Paula", "001"))));
+
+        assertThat(rebuilt.isReady()).isFalse();
+        rebuilt.rebuild();
+
+        assertThat(rebuilt.isReady()).isTrue();
+        assertThat(ids(rebuilt.search("paula", null, PageRequest.of(0, 10)))).containsExactly(7);
+    }
+
+    @Test
+    @DisplayName("Should drop rows changed elsewhere on rebuild and keep the local writes made while it ran")
+    public void reconcileTest() {
+
+        // cenario: o banco já não tem o 1 (apagado por outra instância) e o 2 foi renomeado lá;
+        // enquanto a carga lê o banco, esta instância grava o 4
+        Mockito.when(repository.findByIdGreaterThan(Mockito.eq(0), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    searchIndex.index(registration(4, "Paula Lima", "WMK-004"));
+                    return new SliceImpl<>(List.of(
+                            registration(2, "Ana Clara", "WMK-002"),
+                            registration(3, "Amanda", "BTC-003")));
+                });
+
+        // execução
+        searchIndex.rebuild();
+
+        // assert
+        assertThat(ids(searchIndex.search("paula", null, PageRequest.of(0, 10)))).containsExactly(4);
+        assertThat(ids(searchIndex.search("clara", null, PageRequest.of(0, 10)))).containsExactly(2);
+        assertThat(searchIndex.size()).isEqualTo(3);
+    }
+
+    private List<Integer> ids(Page<Integer> page) {
+        return page.getContent();
+    }
+
+    private Registration registration(Integer id, String name, String registration) {
+        return Registration.builder().id(id).name(name).registration(registration).build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
+import com.bibs.meetups.model.entity.Registration;
+import com.bibs.meetups.repository.OutboxEventRepository;
+import com.bibs.meetups.repository.RegistrationRepository;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.cache.RegistrationCache;
+import com.bibs.meetups.service.impl.RegistrationServiceImpl;
+import com.bibs.meetups.service.outbox.Outbox;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // cada thread precisa da sua própria transação
+public class RegistrationServiceConcurrencyTest {
+
+    static final int KEYS = 8;
+    static final int ATTEMPTS = 400;
+    static final int THREADS = 32;
+
+    @Autowired
+    RegistrationRepository repository;
+
+    @Autowired
+    OutboxEventRepository outboxRepository;
+
+    RegistrationService registrationService;
+
+    @BeforeEach
+    public void setUp() {
+        this.registrationService = new RegistrationServiceImpl(repository,
+                new RegistrationCache(100, Duration.ofMinutes(10)),
+                new RegistrationSearchIndex(repository, true),
+                new Outbox(outboxRepository, new ObjectMapper()),
+                Mockito.mock(AttendanceCounters.class));
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should accept exactly one registration per key under concurrent saves")
+    public void concurrentDuplicatedSavesTest() throws Exception {
+
+        // cenario
+        Map<String, AtomicInteger> created = new ConcurrentHashMap<>();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Throwable> unexpected = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        // execução
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            String key = "REG-" + (i % KEYS);
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    registrationService.save(Registration.builder()
+                            .name("Paula")
+                            .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                            .registration(key)
+                            .build());
+                    created.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                } catch (BusinessException e) {
+                    assertThat(e).hasMessage("Registration already created");
+                    rejected.incrementAndGet();
+                } catch (RuntimeException e) {
+                    synchronized (unexpected) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // assert
+        assertThat(unexpected).isEmpty();
+        assertThat(created).hasSize(KEYS);
+        assertThat(created.values()).allMatch(count -> count.get() == 1);
+        assertThat(rejected.get()).isEqualTo(ATTEMPTS - KEYS);
+        assertThat(repository.count()).isEqualTo(KEYS);
+    }
+
+    @Test
+    @DisplayName("Should let only one of many concurrent updates from the same version through")
+    public void concurrentConditionalUpdatesTest() throws Exception {
+
+        // cenario
+        Registration registration = registrationService.save(Registration.builder()
+                .name("Paula")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
+                .registration("REG-1")
+                .build());
+        Integer version = registration.getVersion();
+        AtomicInteger updated = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        // execução: todos leram a mesma versão
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String name = "Paula " + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    if (registrationService.patch(registration.getId(), version, name, null)) {
+                        updated.incrementAndGet();
+                    }
+                } catch (ConflictException e) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // assert
+        Registration current = repository.findById(registration.getId()).orElseThrow();
+        assertThat(updated.get()).isEqualTo(1);
+        assertThat(conflicts.get()).isEqualTo(THREADS - 1);
+        assertThat(current.getVersion()).isEqualTo(version + 1);
+        assertThat(current.getDateOfRegistration()).isEqualTo(LocalDate.of(2022, 4, 4));
+
+        // sem versão a última escrita vence
+        assertThat(registrationService.update(registration.getId(), null, "Ana", null)).isTrue();
+        assertThat(repository.findById(registration.getId()).orElseThrow().getDateOfRegistration()).isNull();
+    }
+}
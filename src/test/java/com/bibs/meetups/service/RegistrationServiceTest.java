@@ -1,27 +1,46 @@
 package com.bibs.meetups.service;
 
+import com.bibs.meetups.controller.dto.RegistrationBatchResultDTO;
 import com.bibs.meetups.exception.BusinessException;
+import com.bibs.meetups.exception.ConflictException;
+import com.bibs.meetups.model.entity.Meetup;
 import com.bibs.meetups.model.entity.Registration;
 import com.bibs.meetups.repository.RegistrationRepository;
+import com.bibs.meetups.service.attendance.AttendanceCounters;
+import com.bibs.meetups.service.cache.RegistrationCache;
 import com.bibs.meetups.service.impl.RegistrationServiceImpl;
+import com.bibs.meetups.service.outbox.Outbox;
+import com.bibs.meetups.service.search.RegistrationSearchIndex;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,12 +51,22 @@ public class RegistrationServiceTest {
 
     RegistrationService registrationService;
 
+    RegistrationSearchIndex searchIndex;
+
     @MockBean
     RegistrationRepository repository;
 
+    @MockBean
+    Outbox outbox;
+
+    @MockBean
+    AttendanceCounters attendanceCounters;
+
     @BeforeEach // antes de cada teste...
     public void setUp() {
-        this.registrationService = new RegistrationServiceImpl(repository);
+        this.searchIndex = new RegistrationSearchIndex(repository, true);
+        this.registrationService = new RegistrationServiceImpl(repository,
+                new RegistrationCache(100, Duration.ofMinutes(10)), searchIndex, outbox, attendanceCounters);
     }
 
     @Test
@@ -48,16 +77,17 @@ public class RegistrationServiceTest {
         Registration registration = createValidRegistration();
 
         // execução (simula o serviço e o controller)
-        Mockito.when(repository.existsByRegistration(Mockito.anyString())).thenReturn(false);
-        Mockito.when(repository.save(registration)).thenReturn(createValidRegistration());
+        Mockito.when(repository.saveAndFlush(registration)).thenReturn(createValidRegistration());
 
         Registration savedRegistration = registrationService.save(registration);
 
         // assert
         assertThat(savedRegistration.getId()).isEqualTo(101);
         assertThat(savedRegistration.getName()).isEqualTo("Paula");
-        assertThat(savedRegistration.getDateOfRegistration()).isEqualTo("04/04/2022");
+        assertThat(savedRegistration.getDateOfRegistration()).isEqualTo(LocalDate.of(2022, 4, 4));
         assertThat(savedRegistration.getRegistration()).isEqualTo("001");
+        // os efeitos colaterais ficam no outbox, não rodam na requisição
+        Mockito.verify(outbox).registrationCreated(savedRegistration);
 
     }
 
@@ -67,15 +97,18 @@ public class RegistrationServiceTest {
     public void shouldNotSaveAsDuplicatedRegistration() {
 
         Registration registration = createValidRegistration();
-        Mockito.when(repository.existsByRegistration(Mockito.any())).thenReturn(true);
+        // o índice único rejeita o insert
+        Mockito.when(repository.saveAndFlush(registration)).thenThrow(new DataIntegrityViolationException("duplicated",
+                new ConstraintViolationException("duplicated", null, Registration.UNIQUE_REGISTRATION_INDEX)));
 
         Throwable exception = Assertions.catchThrowable( () -> registrationService.save(registration));
         assertThat(exception)
                 .isInstanceOf(BusinessException.class)
                 .hasMessage("Registration already created");
 
-        // + uma etapa de verificação (para nunca salvar):
-        Mockito.verify(repository, Mockito.never()).save(registration);
+        // + uma etapa de verificação (sem consulta extra antes do insert):
+        Mockito.verify(repository, Mockito.never()).existsByRegistration(Mockito.any());
+        Mockito.verify(outbox, Mockito.never()).registrationCreated(Mockito.any());
     }
 
     @Test
@@ -112,6 +145,26 @@ public class RegistrationServiceTest {
         assertThat(registration.isPresent()).isFalse();
     }
 
+    @Test
+    @DisplayName("Should refuse to delete a registration that still has meetups")
+    public void deleteRegistrationWithMeetupsTest() {
+
+        // cenario: a FK dos meetups rejeita o delete
+        Registration registration = Registration.builder().id(11).build();
+        Mockito.doThrow(new DataIntegrityViolationException("referenced",
+                        new ConstraintViolationException("referenced", null, Meetup.REGISTRATION_FOREIGN_KEY)))
+                .when(repository).flush();
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> registrationService.delete(registration));
+
+        // assert
+        assertThat(exception)
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Registration has meetups");
+        Mockito.verify(attendanceCounters, Mockito.never()).registrationDeleted(Mockito.any());
+    }
+
     @Test
     @DisplayName("Should delete a student")
     public void deleteRegistrationTest() {
@@ -122,6 +175,7 @@ public class RegistrationServiceTest {
         assertDoesNotThrow(() -> registrationService.delete(registration));
 
         Mockito.verify(repository, Mockito.times(1)).delete(registration); // para chamar uma única vez
+        Mockito.verify(attendanceCounters).registrationDeleted(11);
 
     }
 
@@ -194,13 +248,306 @@ public class RegistrationServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Should save a batch rejecting registrations already stored or repeated in the batch")
+    public void saveAllRegistrationsTest() {
+
+        // cenario
+        Registration existing = Registration.builder().name("Ana").registration("001").build();
+        Registration fresh = Registration.builder().name("Paula").registration("002").build();
+        Registration repeated = Registration.builder().name("Amanda").registration("002").build();
+
+        Mockito.when(repository.findExistingRegistrations(Mockito.anyCollection())).thenReturn(Set.of("001"));
+        Mockito.when(repository.saveAll(List.of(fresh)))
+                .thenReturn(List.of(Registration.builder().id(102).name("Paula").registration("002").build()));
+
+        // execução
+        List<RegistrationBatchResultDTO> results = registrationService.saveAll(Arrays.asList(existing, fresh, repeated));
+
+        // assert
+        assertThat(results).extracting(RegistrationBatchResultDTO::getStatus).containsExactly(
+                RegistrationBatchResultDTO.Status.DUPLICATED,
+                RegistrationBatchResultDTO.Status.CREATED,
+                RegistrationBatchResultDTO.Status.DUPLICATED);
+        assertThat(results.get(1).getId()).isEqualTo(102);
+
+        // uma única consulta de duplicados para o lote inteiro
+        Mockito.verify(repository, Mockito.times(1)).findExistingRegistrations(Mockito.anyCollection());
+        Mockito.verify(repository, Mockito.never()).existsByRegistration(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated registration lookups from the cache until it is invalidated")
+    public void cachedRegistrationLookupTest() {
+
+        // cenario
+        Registration registration = createValidRegistration();
+        Mockito.when(repository.findByRegistration("001")).thenReturn(Optional.of(registration));
+        Mockito.when(repository.findById(101)).thenReturn(Optional.of(registration));
+        Mockito.when(repository.save(registration)).thenReturn(registration);
+
+        // execução
+        registrationService.getRegistrationByRegistrationAtr("001");
+        registrationService.getRegistrationByRegistrationAtr("001");
+        registrationService.getRegistrationByID(101);
+
+        // assert: a primeira busca por atributo já deixa o registro disponível por id
+        Mockito.verify(repository, Mockito.times(1)).findByRegistration("001");
+        Mockito.verify(repository, Mockito.never()).findById(101);
+
+        // o update invalida o cache
+        registrationService.update(registration);
+        Optional<Registration> found = registrationService.getRegistrationByRegistrationAtr("001");
+
+        assertThat(found).contains(registration);
+        Mockito.verify(repository, Mockito.times(2)).findByRegistration("001");
+    }
+
+    @Test
+    @DisplayName("Should patch a registration with a single conditional update")
+    public void patchRegistrationTest() {
+
+        // cenario
+        Mockito.when(repository.patchIfMatch(101, 3, "Paula", null)).thenReturn(1);
+
+        // execução
+        boolean patched = registrationService.patch(101, 3, "Paula", null);
+
+        // assert: sem SELECT antes nem depois
+        assertThat(patched).isTrue();
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(repository, Mockito.never()).existsById(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should clear the indexed name when a full update sends no name")
+    public void updateRegistrationWithoutNameTest() {
+
+        // cenario
+        searchIndex.index(Registration.builder().id(101).name("Paula").registration("001").build());
+        Mockito.when(repository.updateIfMatch(101, 3, null, LocalDate.of(2022, 4, 4))).thenReturn(1);
+
+        // execução
+        boolean updated = registrationService.update(101, 3, null, LocalDate.of(2022, 4, 4));
+
+        // assert: o PUT grava o nome nulo, então a busca pelo nome antigo não acha mais
+        assertThat(updated).isTrue();
+        assertThat(searchIndex.search("Paula", null, PageRequest.of(0, 10)).getContent()).isEmpty();
+        assertThat(searchIndex.search(null, "001", PageRequest.of(0, 10)).getContent()).containsExactly(101);
+    }
+
+    @Test
+    @DisplayName("Should keep the indexed name when a patch sends no name")
+    public void patchRegistrationWithoutNameTest() {
+
+        // cenario
+        searchIndex.index(Registration.builder().id(101).name("Paula").registration("001").build());
+        Mockito.when(repository.patchIfMatch(101, 3, null, LocalDate.of(2022, 4, 4))).thenReturn(1);
+
+        // execução
+        boolean patched = registrationService.patch(101, 3, null, LocalDate.of(2022, 4, 4));
+
+        // assert
+        assertThat(patched).isTrue();
+        assertThat(searchIndex.search("Paula", null, PageRequest.of(0, 10)).getContent()).containsExactly(101);
+    }
+
+    @Test
+    @DisplayName("Should throw a conflict when the registration version changed")
+    public void updateRegistrationConflictTest() {
+
+        // cenario
+        Mockito.when(repository.updateIfMatch(101, 3, "Paula", LocalDate.of(2022, 4, 4))).thenReturn(0);
+        Mockito.when(repository.existsById(101)).thenReturn(true);
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> registrationService.update(101, 3, "Paula", LocalDate.of(2022, 4, 4)));
+
+        // assert
+        assertThat(exception)
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Registration was modified by another request");
+    }
+
+    @Test
+    @DisplayName("Should report a missing registration on a conditional update")
+    public void updateMissingRegistrationTest() {
+
+        Mockito.when(repository.patchIfMatch(101, 3, "Paula", null)).thenReturn(0);
+        Mockito.when(repository.existsById(101)).thenReturn(false);
+
+        assertThat(registrationService.patch(101, 3, "Paula", null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should not cache registrations that were not found")
+    public void registrationNotFoundIsNotCachedTest() {
+
+        Mockito.when(repository.findById(11)).thenReturn(Optional.empty());
+
+        registrationService.getRegistrationByID(11);
+        registrationService.getRegistrationByID(11);
+
+        Mockito.verify(repository, Mockito.times(2)).findById(11);
+    }
+
+    @Test
+    @DisplayName("Should seek registrations after the last id ordered by id")
+    public void findRegistrationsAfterTest() {
+
+        PageRequest firstPage = PageRequest.of(0, 10, Sort.by("id"));
+        Mockito.when(repository.findByIdGreaterThan(0, firstPage))
+                .thenReturn(new SliceImpl<>(List.of(createValidRegistration()), firstPage, false));
+
+        Slice<Registration> result = registrationService.findAfter(new Registration(), null, 10);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isFalse();
+        Mockito.verify(repository, Mockito.never()).count();
+    }
+
+    @Test
+    @DisplayName("Should seek and count registrations with the listing filters when any is informed")
+    public void findRegistrationsAfterWithFilterTest() {
+
+        // cenario
+        Registration filter = Registration.builder().name("Paula").build();
+        Mockito.when(repository.findAfterByFilter(5, filter, 10))
+                .thenReturn(new SliceImpl<>(List.of(createValidRegistration())));
+        Mockito.when(repository.countByFilter(filter)).thenReturn(1L);
+
+        // execução
+        Slice<Registration> result = registrationService.findAfter(filter, 5, 10);
+        long count = registrationService.count(filter);
+
+        // assert
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(count).isEqualTo(1);
+        Mockito.verify(repository, Mockito.never()).findByIdGreaterThan(Mockito.any(), Mockito.any());
+        Mockito.verify(repository, Mockito.never()).count();
+    }
+
+    @Test
+    @DisplayName("Should answer name and registration filters from the search index")
+    public void findRegistrationWithSearchIndexTest() {
+
+        // cenario
+        RegistrationSearchIndex searchIndex = new RegistrationSearchIndex(repository, true);
+        Registration registration = createValidRegistration();
+        Mockito.when(repository.findByIdGreaterThan(Mockito.eq(0), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(registration)));
+        searchIndex.rebuild();
+        registrationService = new RegistrationServiceImpl(repository,
+                new RegistrationCache(100, Duration.ofMinutes(10)), searchIndex, outbox,
+                attendanceCounters);
+
+        Mockito.when(repository.findAllById(List.of(101))).thenReturn(List.of(registration));
+
+        // execução
+        Page<Registration> result = registrationService.find(Registration.builder().name("PAU").build(), PageRequest.of(0, 10));
+
+        // assert
+        assertThat(result.getContent()).containsExactly(registration);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should leave indexed ids that no longer exist out of the page, the total and the index")
+    public void findRegistrationWithStaleSearchIndexTest() {
+
+        // cenario: o 102 foi apagado por outra instância e o índice local ainda não sabe
+        RegistrationSearchIndex searchIndex = new RegistrationSearchIndex(repository, true);
+        Registration registration = createValidRegistration();
+        Registration deleted = Registration.builder().id(102).name("Paula Lima").registration("002").build();
+        Mockito.when(repository.findByIdGreaterThan(Mockito.eq(0), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(registration, deleted)));
+        searchIndex.rebuild();
+        registrationService = new RegistrationServiceImpl(repository,
+                new RegistrationCache(100, Duration.ofMinutes(10)), searchIndex, outbox,
+                attendanceCounters);
+
+        Mockito.when(repository.findAllById(List.of(101, 102))).thenReturn(List.of(registration));
+
+        // execução
+        Page<Registration> result = registrationService.find(Registration.builder().name("paula").build(), PageRequest.of(0, 10));
+
+        // assert
+        assertThat(result.getContent()).containsExactly(registration);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(searchIndex.search("paula", null, PageRequest.of(0, 10)).getContent()).containsExactly(101);
+    }
+
     private Registration createValidRegistration() {
         return Registration.builder()
                 .id(101)
                 .name("Paula")
-                .dateOfRegistration("04/04/2022")
+                .dateOfRegistration(LocalDate.of(2022, 4, 4))
                 .registration("001")
                 .build();
     }
 
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should look up many ids with chunked IN queries, skipping the ones already cached")
+    public void lookupByIdsTest() {
+
+        // cenario: 1200 ids, o 1 já está no cache
+        Mockito.when(repository.findById(1)).thenReturn(Optional.of(registration(1)));
+        registrationService.getRegistrationByID(1);
+        Mockito.when(repository.findAllById(Mockito.anyIterable())).thenAnswer(invocation -> {
+            List<Registration> found = new ArrayList<>();
+            for (Integer id : invocation.<Iterable<Integer>>getArgument(0)) {
+                if (id % 2 == 1) {
+                    found.add(registration(id));
+                }
+            }
+            return found;
+        });
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 1200; id++) {
+            ids.add(id);
+        }
+
+        // execução
+        Map<Integer, Registration> found = registrationService.getRegistrationsByIds(ids);
+
+        // assert: 1199 ausentes em lotes de 500
+        assertThat(found).hasSize(600).containsKeys(1, 3, 1199).doesNotContainKeys(2, 1200);
+        ArgumentCaptor<Iterable<Integer>> chunks = ArgumentCaptor.forClass(Iterable.class);
+        Mockito.verify(repository, Mockito.times(3)).findAllById(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(chunk -> ((List<Integer>) chunk).size()).containsExactly(500, 500, 199);
+        assertThat(chunks.getAllValues().get(0)).doesNotContain(1);
+    }
+
+    @Test
+    @DisplayName("Should look up many registration codes and keep them cached for later lookups")
+    public void lookupByRegistrationsTest() {
+
+        // cenario
+        Mockito.when(repository.findByRegistrationIn(Mockito.anyCollection()))
+                .thenReturn(List.of(registration(11), registration(12)));
+
+        // execução
+        Map<String, Registration> found = registrationService.getRegistrationsByRegistrationAtrs(
+                List.of("REG-11", "REG-12", "REG-13", "REG-11"));
+        Map<String, Registration> again = registrationService.getRegistrationsByRegistrationAtrs(List.of("REG-12"));
+        Optional<Registration> byId = registrationService.getRegistrationByID(11);
+
+        // assert
+        assertThat(found).containsOnlyKeys("REG-11", "REG-12");
+        assertThat(found.get("REG-11").getId()).isEqualTo(11);
+        assertThat(again.get("REG-12").getId()).isEqualTo(12);
+        assertThat(byId).isPresent();
+        Mockito.verify(repository).findByRegistrationIn(Mockito.argThat(codes ->
+                codes.size() == 3 && codes.containsAll(Set.of("REG-11", "REG-12", "REG-13"))));
+        Mockito.verify(repository, Mockito.never()).findAllById(Mockito.anyIterable());
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyInt());
+    }
+
+    private static Registration registration(int id) {
+        return Registration.builder().id(id).name("Paula " + id).registration("REG-" + id).build();
+    }
+
 }
\ No newline at end of file
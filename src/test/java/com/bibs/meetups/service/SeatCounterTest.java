@@ -0,0 +1,117 @@
+package com.bibs.meetups.service;
+
+import com.bibs.meetups.model.entity.MeetupCapacity;
+import com.bibs.meetups.repository.MeetupCapacityRepository;
+import com.bibs.meetups.service.capacity.SeatCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// duas instâncias da aplicação, cada uma com o seu contador, sobre o mesmo banco
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // cada chamada vê o que as outras comitaram
+public class SeatCounterTest {
+
+    static final String EVENT = "Womakerscode Dados";
+
+    @Autowired
+    MeetupCapacityRepository repository;
+
+    SeatCounter first;
+
+    SeatCounter second;
+
+    @BeforeEach
+    public void setUp() {
+        // refresh-interval zero: o "sem limite" e o "lotado" guardados já estão vencidos na tentativa seguinte
+        first = new SeatCounter(repository, Duration.ZERO);
+        second = new SeatCounter(repository, Duration.ZERO);
+    }
+
+    @AfterEach // o contexto é compartilhado com os outros testes de JPA
+    public void tearDown() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should see a capacity configured elsewhere after answering that the event had no limit")
+    public void capacityConfiguredByAnotherInstanceTest() {
+
+        // cenario: a primeira instância vê o evento ainda sem lotação
+        assertThat(first.tryAcquire(EVENT, 1)).isEqualTo(SeatCounter.Reservation.UNLIMITED);
+
+        // execução: a lotação é configurada pela outra instância, que reserva a única vaga
+        repository.saveAndFlush(MeetupCapacity.builder().event(EVENT).capacity(1).reserved(0).build());
+        assertThat(second.tryAcquire(EVENT, 1)).isEqualTo(SeatCounter.Reservation.ACQUIRED);
+        repository.reserve(EVENT, 1);
+
+        // assert
+        assertThat(first.tryAcquire(EVENT, 1)).isEqualTo(SeatCounter.Reservation.FULL);
+        assertThat(first.available(EVENT)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reread the database before refusing a seat released by another instance")
+    public void seatReleasedByAnotherInstanceTest() {
+
+        // cenario: evento de uma vaga, tomada pela primeira instância
+        repository.saveAndFlush(MeetupCapacity.builder().event(EVENT).capacity(1).reserved(0).build());
+        assertThat(first.tryAcquire(EVENT, 1)).isEqualTo(SeatCounter.Reservation.ACQUIRED);
+        repository.reserve(EVENT, 1);
+        assertThat(second.tryAcquire(EVENT, 1)).isEqualTo(SeatCounter.Reservation.FULL);
+
+        // execução: a segunda instância libera a vaga (inscrição que trocou de evento)
+        repository.release(EVENT, 1);
+        second.release(EVENT, 1);
+
+        // assert: o contador da primeira ainda dizia lotado, mas ela relê antes de recusar
+        assertThat(first.tryAcquire(EVENT, 1)).isEqualTo(SeatCounter.Reservation.ACQUIRED);
+    }
+
+    @Test
+    @DisplayName("Should treat a capacity row without a limit as unlimited")
+    public void unlimitedRowTest() {
+
+        repository.saveAndFlush(MeetupCapacity.builder().event(EVENT).reserved(3).build());
+
+        assertThat(first.tryAcquire(EVENT, 1)).isEqualTo(SeatCounter.Reservation.UNLIMITED);
+        assertThat(first.available(EVENT)).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Should keep the unlimited and full states until the refresh interval or a reset")
+    public void cachedStatesTest() {
+
+        // cenario
+        MeetupCapacityRepository capacities = Mockito.mock(MeetupCapacityRepository.class);
+        Mockito.when(capacities.findById("Womakerscode Java")).thenReturn(Optional.of(
+                MeetupCapacity.builder().event("Womakerscode Java").capacity(1).reserved(1).build()));
+        SeatCounter counter = new SeatCounter(capacities, Duration.ofMinutes(1));
+
+        // execução
+        for (int i = 0; i < 3; i++) {
+            assertThat(counter.tryAcquire(EVENT, 1)).isEqualTo(SeatCounter.Reservation.UNLIMITED);
+            assertThat(counter.tryAcquire("Womakerscode Java", 1)).isEqualTo(SeatCounter.Reservation.FULL);
+        }
+
+        // assert: uma leitura por evento, e o reset (setCapacity nesta instância) faz reler
+        Mockito.verify(capacities, Mockito.times(1)).findById(EVENT);
+        Mockito.verify(capacities, Mockito.times(1)).findById("Womakerscode Java");
+        counter.reset(EVENT);
+        counter.tryAcquire(EVENT, 1);
+        Mockito.verify(capacities, Mockito.times(2)).findById(EVENT);
+    }
+}